@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb;
+
+import java.util.concurrent.Future;
+
+/**
+ * Non blocking counterpart of {@link RestRequest}, every call returns as soon as the request was handed to the I/O layer.
+ */
+public interface AsyncRestRequest {
+
+    Future<RequestResult> get(String path);
+
+    Future<RequestResult> get(String path, Object data);
+
+    Future<RequestResult> delete(String path);
+
+    Future<RequestResult> post(String path, Object data);
+
+    Future<RequestResult> put(String path, Object data);
+
+    AsyncRestRequest with(String uri);
+
+    String getUri();
+
+    /**
+     * Releases the I/O resources shared by this request and all requests derived from it with {@link #with(String)}.
+     */
+    void shutdown();
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.Future;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.handler.codec.http.DefaultHttpRequest;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpMethod;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.HttpResponse;
+import org.jboss.netty.handler.codec.http.HttpVersion;
+import org.jboss.netty.util.CharsetUtil;
+import org.neo4j.rest.graphdb.transport.NettyHttpClient;
+import org.neo4j.rest.graphdb.util.ConvertingFuture;
+import org.neo4j.rest.graphdb.util.JsonHelper;
+
+import com.sun.jersey.core.util.Base64;
+
+public class ExecutingAsyncRestRequest implements AsyncRestRequest {
+
+    private final String baseUri;
+    private final NettyHttpClient client;
+    private final String authorization;
+
+    public ExecutingAsyncRestRequest( String baseUri ) {
+        this( baseUri, (String) null, null );
+    }
+
+    public ExecutingAsyncRestRequest( String baseUri, String username, String password ) {
+        this( baseUri, new NettyHttpClient(), authorization( username, password ) );
+    }
+
+    private ExecutingAsyncRestRequest( String uri, NettyHttpClient client, String authorization ) {
+        this.baseUri = uriWithoutSlash( uri );
+        this.client = client;
+        this.authorization = authorization;
+    }
+
+    private static String authorization( String username, String password ) {
+        if ( username == null ) return null;
+        return "Basic " + new String( Base64.encode( username + ":" + password ), CharsetUtil.US_ASCII );
+    }
+
+    private String uriWithoutSlash( String uri ) {
+        return uri.endsWith( "/" ) ? uri.substring( 0, uri.length() - 1 ) : uri;
+    }
+
+    private String pathOrAbsolute( String path ) {
+        if ( path.startsWith( "http://" ) || path.startsWith( "https://" ) ) return path;
+        return baseUri + "/" + path;
+    }
+
+    @Override
+    public Future<RequestResult> get( String path ) {
+        return execute( HttpMethod.GET, path, null );
+    }
+
+    /**
+     * Sent as POST if there is data, like the blocking request does, servers ignore the body of a GET.
+     */
+    @Override
+    public Future<RequestResult> get( String path, Object data ) {
+        return execute( data != null ? HttpMethod.POST : HttpMethod.GET, path, data );
+    }
+
+    @Override
+    public Future<RequestResult> delete( String path ) {
+        return execute( HttpMethod.DELETE, path, null );
+    }
+
+    @Override
+    public Future<RequestResult> post( String path, Object data ) {
+        return execute( HttpMethod.POST, path, data );
+    }
+
+    @Override
+    public Future<RequestResult> put( String path, Object data ) {
+        return execute( HttpMethod.PUT, path, data );
+    }
+
+    private Future<RequestResult> execute( HttpMethod method, String path, Object data ) {
+        final URI uri = uri( pathOrAbsolute( path ) );
+        final HttpRequest request = new DefaultHttpRequest( HttpVersion.HTTP_1_1, method, requestTarget( uri ) );
+        request.setHeader( HttpHeaders.Names.HOST, uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort() );
+        request.setHeader( HttpHeaders.Names.ACCEPT, MediaType.APPLICATION_JSON );
+        if ( authorization != null ) {
+            request.setHeader( HttpHeaders.Names.AUTHORIZATION, authorization );
+        }
+        if ( data != null ) {
+            final ChannelBuffer content = ChannelBuffers.copiedBuffer( JsonHelper.createJsonFrom( data ), CharsetUtil.UTF_8 );
+            request.setHeader( HttpHeaders.Names.CONTENT_TYPE, MediaType.APPLICATION_JSON );
+            HttpHeaders.setContentLength( request, content.readableBytes() );
+            request.setContent( content );
+        } else if ( method.equals( HttpMethod.POST ) || method.equals( HttpMethod.PUT ) ) {
+            HttpHeaders.setContentLength( request, 0 );
+        }
+        return new ConvertingFuture<HttpResponse, RequestResult>( client.execute( uri, request ) ) {
+            @Override
+            protected RequestResult convert( HttpResponse response ) {
+                return extractFrom( response );
+            }
+        };
+    }
+
+    private RequestResult extractFrom( HttpResponse response ) {
+        final int status = response.getStatus().getCode();
+        final String location = response.getHeader( HttpHeaders.Names.LOCATION );
+        final String data = status != Response.Status.NO_CONTENT.getStatusCode() ? response.getContent().toString( CharsetUtil.UTF_8 ) : null;
+        return new RequestResult( status, location, data );
+    }
+
+    private String requestTarget( URI uri ) {
+        final String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        return uri.getRawQuery() == null ? path : path + "?" + uri.getRawQuery();
+    }
+
+    private URI uri( String uri ) {
+        try {
+            return new URI( uri );
+        } catch ( URISyntaxException e ) {
+            throw new RuntimeException( e );
+        }
+    }
+
+    @Override
+    public AsyncRestRequest with( String uri ) {
+        return new ExecutingAsyncRestRequest( uri, client, authorization );
+    }
+
+    @Override
+    public String getUri() {
+        return baseUri;
+    }
+
+    @Override
+    public void shutdown() {
+        client.shutdown();
+    }
+}
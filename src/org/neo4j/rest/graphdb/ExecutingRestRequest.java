@@ -26,8 +26,11 @@ import java.net.URLEncoder;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 
+import org.neo4j.rest.graphdb.transport.RestTransport;
+import org.neo4j.rest.graphdb.transport.UrlConnectionTransport;
 import org.neo4j.rest.graphdb.util.JsonHelper;
 
 import com.sun.jersey.api.client.Client;
@@ -40,15 +43,26 @@ public class ExecutingRestRequest implements RestRequest {
 
     public static final int CONNECT_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(30);
     public static final int READ_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(30);
+    public static final String STREAM_HEADER = "X-Stream";
     private final String baseUri;
+    private final RestTransport transport;
     private final Client client;
+    private final String username;
+    private final String password;
 
     public ExecutingRestRequest( String baseUri ) {
         this( baseUri, null, null );
     }
 
     public ExecutingRestRequest( String baseUri, String username, String password ) {
+        this( baseUri, username, password, new UrlConnectionTransport() );
+    }
+
+    public ExecutingRestRequest( String baseUri, String username, String password, RestTransport transport ) {
         this.baseUri = uriWithoutSlash( baseUri );
+        this.transport = transport;
+        this.username = username;
+        this.password = password;
         client = createClient();
         addAuthFilter(username, password);
 
@@ -60,17 +74,26 @@ public class ExecutingRestRequest implements RestRequest {
     }
 
     protected Client createClient() {
-        Client client = Client.create();
+        return transport.createClient();
+    }
 
-        client.setConnectTimeout(CONNECT_TIMEOUT);
-        client.setReadTimeout(READ_TIMEOUT);
+    private ExecutingRestRequest( ExecutingRestRequest parent, String uri ) {
+        this.baseUri = uriWithoutSlash( uri );
+        this.transport = parent.transport;
+        this.client = parent.client;
+        this.username = parent.username;
+        this.password = parent.password;
+    }
 
-        return client;
+    /**
+     * The credentials are handed on to requests that don't go through the jersey client, e.g. the asynchronous ones.
+     */
+    String getUsername() {
+        return username;
     }
 
-    private ExecutingRestRequest( String uri, Client client ) {
-        this.baseUri = uriWithoutSlash( uri );
-        this.client = client;
+    String getPassword() {
+        return password;
     }
 
     protected String uriWithoutSlash( String uri ) {
@@ -94,7 +117,7 @@ public class ExecutingRestRequest implements RestRequest {
     }
 
     private String pathOrAbsolute( String path ) {
-        if ( path.startsWith( "http://" ) ) return path;
+        if ( path.startsWith( "http://" ) || path.startsWith( "https://" ) ) return path;
         return baseUri + "/" + path;
     }
 
@@ -131,14 +154,39 @@ public class ExecutingRestRequest implements RestRequest {
     }
 
   
+    @Override
+    public RequestResult getStreaming( String path, Object data ) {
+        return RequestResult.streamFrom(streamingBuilder(path, data).get(ClientResponse.class));
+    }
+
+    @Override
+    public RequestResult postStreaming( String path, Object data ) {
+        return RequestResult.streamFrom(streamingBuilder(path, data).post(ClientResponse.class));
+    }
+
+    @Override
+    public RequestResult getIfNoneMatch( String path, String entityTag ) {
+        Builder builder = builder( path );
+        if ( entityTag != null ) {
+            builder = builder.header( HttpHeaders.IF_NONE_MATCH, entityTag );
+        }
+        return RequestResult.extractFrom(builder.get(ClientResponse.class));
+    }
+
+    private Builder streamingBuilder( String path, Object data ) {
+        Builder builder = builder( path ).header( STREAM_HEADER, "true" );
+        if ( data != null ) {
+            builder = builder.entity( JsonHelper.createJsonFrom( data ), MediaType.APPLICATION_JSON_TYPE );
+        }
+        return builder;
+    }
+
     @Override
     public RequestResult put( String path, Object data ) {
         Builder builder = builder( path );
         if ( data != null ) {
             builder = builder.entity( JsonHelper.createJsonFrom( data ), MediaType.APPLICATION_JSON_TYPE );
         }
-        final ClientResponse response = builder.put(ClientResponse.class);
-        response.close();
         return RequestResult.extractFrom(builder.put(ClientResponse.class));
     }
 
@@ -146,7 +194,7 @@ public class ExecutingRestRequest implements RestRequest {
 
     @Override
     public RestRequest with( String uri ) {
-        return new ExecutingRestRequest(  uri , client );
+        return new ExecutingRestRequest( this, uri );
     }
 
     private URI uri( String uri ) {
@@ -163,10 +211,13 @@ public class ExecutingRestRequest implements RestRequest {
         return baseUri;
     }
 
+    public RestTransport getTransport() {
+        return transport;
+    }
+
 	@Override
 	public Map<?, ?> toMap(RequestResult requestResult) {	
-	   final String json = entityString(requestResult);
-	    return JsonHelper.jsonToMap(json);	   
+	    return requestResult.toMap();
 	}
 	
 	public String entityString( RequestResult requestResult) {
@@ -19,13 +19,23 @@
  */
 package org.neo4j.rest.graphdb;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
 
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.StatusType;
 
+import org.codehaus.jackson.JsonParser;
+import org.neo4j.helpers.collection.ClosableIterator;
 import org.neo4j.rest.graphdb.batch.RestOperations.RestOperation;
+import org.neo4j.rest.graphdb.util.JsonArrayIterator;
 import org.neo4j.rest.graphdb.util.JsonHelper;
 
 import com.sun.jersey.api.client.ClientResponse;
@@ -38,7 +48,11 @@ import com.sun.jersey.api.client.ClientResponse;
 public class RequestResult {
     private final int status;
     private final String location;
-    private final String entity;
+    private String entity;
+    private InputStream stream;
+    private Object content;
+    private boolean parsed;
+    private String entityTag;
     private long batchId;
     private boolean batchResult = false;
 
@@ -63,8 +77,26 @@ public class RequestResult {
         final int status = clientResponse.getStatus();
         final URI location = clientResponse.getLocation();
         final String data = status != Response.Status.NO_CONTENT.getStatusCode() ? clientResponse.getEntity(String.class) : null;
+        final RequestResult result = new RequestResult(status, uriString(location), data);
+        result.entityTag = clientResponse.getHeaders().getFirst(HttpHeaders.ETAG);
         clientResponse.close();
-        return new RequestResult(status, uriString(location), data);
+        return result;
+    }
+
+    /**
+     * Keeps the response body as an open stream, it is decoded on demand by {@link #toMap()}, {@link #toEntity()},
+     * {@link #createParser()} or {@link #streamArray()}. Callers must consume or {@link #close()} the result.
+     */
+    public static RequestResult streamFrom(ClientResponse clientResponse) {
+        final int status = clientResponse.getStatus();
+        final URI location = clientResponse.getLocation();
+        final RequestResult result = new RequestResult(status, uriString(location), null);
+        if (status != Response.Status.NO_CONTENT.getStatusCode()) {
+            result.stream = clientResponse.getEntityInputStream();
+        } else {
+            clientResponse.close();
+        }
+        return result;
     }
 
     private static String uriString(URI location) {
@@ -80,19 +112,128 @@ public class RequestResult {
         return location;
     }
 
-    public String getEntity() {
+    /**
+     * The ETag header of the response, null if the server sent none.
+     */
+    public String getEntityTag() {
+        return entityTag;
+    }
+
+    public synchronized String getEntity() {
+        if (stream != null) {
+            entity = readFully(takeStream());
+        } else if (parsed && entity == null) {
+            entity = JsonHelper.createJsonFrom(content);
+        }
         return entity;
     }
 
+    public boolean isStreaming() {
+        return stream != null;
+    }
+
+    /**
+     * The decoded JSON body (map, list or single value).
+     */
+    public Object toJson() {
+        if (parsed) return content;
+        final InputStream in = takeStream();
+        if (in != null) return JsonHelper.readJson( in );
+        return JsonHelper.readJson( getEntity() );
+    }
+
     public Object toEntity() {
+        if (parsed) return JsonHelper.toSingleValue( content );
+        final InputStream in = takeStream();
+        if (in != null) return JsonHelper.toSingleValue( JsonHelper.readJson( in ) );
         return JsonHelper.jsonToSingleValue( getEntity() );        
     }
 
     public Map<?, ?> toMap() {
+        if (parsed) return (Map<?, ?>) content;
+        final InputStream in = takeStream();
+        if (in != null) return (Map<?, ?>) JsonHelper.readJson(in);
         final String json = getEntity();
         return JsonHelper.jsonToMap(json);
     }
 
+    /**
+     * A parser over the response body, the caller is responsible for closing it.
+     */
+    public JsonParser createParser() {
+        final InputStream in = takeStream();
+        if (in != null) return JsonHelper.createParser(in);
+        return JsonHelper.createParser(getEntity());
+    }
+
+    /**
+     * Decodes a JSON array response element by element.
+     */
+    public ClosableIterator<Object> streamArray() {
+        if (parsed) {
+            if (RestResultException.isExceptionResult(content)) throw new RestResultException(content);
+            return new ContentIterator(((Collection<?>) content).iterator());
+        }
+        return new JsonArrayIterator(createParser());
+    }
+
+    private static class ContentIterator implements ClosableIterator<Object> {
+        private final Iterator<?> iterator;
+
+        ContentIterator(Iterator<?> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Object next() {
+            return iterator.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public synchronized void close() {
+        if (stream != null) {
+            JsonHelper.closeQuietly(stream);
+            stream = null;
+        }
+    }
+
+    private synchronized InputStream takeStream() {
+        final InputStream in = stream;
+        stream = null;
+        return in;
+    }
+
+    private static String readFully(InputStream in) {
+        try {
+            final StringBuilder sb = new StringBuilder();
+            final Reader reader = new InputStreamReader(in, "UTF-8");
+            final char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                sb.append(buffer, 0, read);
+            }
+            return sb.toString();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            JsonHelper.closeQuietly(in);
+        }
+    }
+
     public boolean statusIs( StatusType status ) {
         return getStatus() == status.getStatusCode();
     }
@@ -109,7 +250,13 @@ public class RequestResult {
         return batchResult;
     }
 
+    /**
+     * The sub result of a batch request, keeps the already decoded body instead of serializing it again.
+     */
     public static RequestResult extractFrom(Map<String, Object> batchResult) {
-        return new RequestResult(200, (String) batchResult.get("location"),JsonHelper.createJsonFrom(batchResult.get("body")));
+        final RequestResult result = new RequestResult(200, (String) batchResult.get("location"), null);
+        result.content = batchResult.get("body");
+        result.parsed = true;
+        return result;
     }
 }
\ No newline at end of file
@@ -25,50 +25,105 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
+import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.PropertyContainer;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
-import org.neo4j.graphdb.index.IndexHits;
 import org.neo4j.graphdb.traversal.TraversalDescription;
+import org.neo4j.helpers.collection.ClosableIterable;
+import org.neo4j.helpers.collection.ClosableIterator;
 import org.neo4j.helpers.collection.MapUtil;
 import org.neo4j.index.lucene.ValueContext;
+import org.neo4j.rest.graphdb.batch.AutoBatch;
+import org.neo4j.rest.graphdb.batch.AutoBatchingRestRequest;
 import org.neo4j.rest.graphdb.batch.BatchCallback;
+import org.neo4j.rest.graphdb.batch.BatchPlan;
 import org.neo4j.rest.graphdb.batch.BatchRestAPI;
 import org.neo4j.rest.graphdb.batch.RestOperations;
 import org.neo4j.rest.graphdb.batch.RestOperations.RestOperation;
 import org.neo4j.rest.graphdb.converter.RelationshipIterableConverter;
 import org.neo4j.rest.graphdb.converter.RestEntityExtractor;
 import org.neo4j.rest.graphdb.converter.RestIndexHitsConverter;
+import org.neo4j.rest.graphdb.entity.PagedRelationshipIterable;
+import org.neo4j.rest.graphdb.entity.PropertyRevalidation;
 import org.neo4j.rest.graphdb.entity.RestEntity;
+import org.neo4j.rest.graphdb.entity.RestEntityCache;
 import org.neo4j.rest.graphdb.entity.RestNode;
 import org.neo4j.rest.graphdb.entity.RestRelationship;
+import org.neo4j.rest.graphdb.index.IndexEntry;
 import org.neo4j.rest.graphdb.index.IndexInfo;
+import org.neo4j.rest.graphdb.index.IndexUpdateResult;
+import org.neo4j.rest.graphdb.index.PagedIndexHits;
+import org.neo4j.rest.graphdb.index.RestIndexHits;
 import org.neo4j.rest.graphdb.index.RestIndex;
 import org.neo4j.rest.graphdb.index.RestIndexManager;
 import org.neo4j.rest.graphdb.index.RetrievedIndexInfo;
 import org.neo4j.rest.graphdb.index.SimpleIndexHits;
+import org.neo4j.rest.graphdb.index.StreamingIndexHits;
+import org.neo4j.rest.graphdb.query.RestCypherQueryEngine;
 import org.neo4j.rest.graphdb.services.PluginInvocation;
 import org.neo4j.rest.graphdb.services.RestInvocationHandler;
 import org.neo4j.rest.graphdb.services.ServiceInvocation;
+import org.neo4j.rest.graphdb.transport.RestTransport;
 import org.neo4j.rest.graphdb.traversal.RestTraversal;
+import org.neo4j.rest.graphdb.util.ConvertingFuture;
+import org.neo4j.rest.graphdb.util.EntityLookupResult;
 import org.neo4j.rest.graphdb.util.JsonHelper;
+import org.neo4j.rest.graphdb.util.QueryResult;
+import org.neo4j.rest.graphdb.util.StreamingIterable;
 
 
 public class RestAPI {
+    public static final int DEFAULT_INDEX_BATCH_SIZE = 500;
 
     protected RestRequest restRequest;
+    private AsyncRestRequest asyncRestRequest;
+    private String user;
+    private String password;
+    private AutoBatch autoBatch;
+    private int batchChunkSize;
+    private int batchParallelism = 1;
+    private ExecutorService batchExecutor;
     private long propertyRefetchTimeInMillis = 1000;
+    private volatile PropertyRevalidation propertyRevalidation;
+    private volatile boolean propertyWriteBuffering;
+    private volatile int relationshipPageSize;
+    private volatile int indexHitsPageSize;
+    private volatile boolean neighbourhoodPrefetch;
+    private volatile Boolean cypherPlugin;
+    private volatile long indexInfoTimeToLive;
+    private final Map<String, CachedIndexInfo> indexInfos = new ConcurrentHashMap<String, CachedIndexInfo>();
+    private final Set<RestEntity> bufferedEntities = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<RestEntity, Boolean>()));
+    private volatile RestEntityCache<RestNode> nodeCache;
+    private volatile RestEntityCache<RestRelationship> relationshipCache;
 
 
     public RestAPI(RestRequest restRequest) {
         this.restRequest = restRequest;
+        if (restRequest instanceof ExecutingRestRequest) {
+            this.user = ((ExecutingRestRequest) restRequest).getUsername();
+            this.password = ((ExecutingRestRequest) restRequest).getPassword();
+        }
     }
 
     public RestAPI(String uri) {
@@ -77,26 +132,189 @@ public class RestAPI {
 
     public RestAPI(String uri, String user, String password) {
         this.restRequest = createRestRequest(uri, user, password);
+        this.user = user;
+        this.password = password;
+    }
+
+    public RestAPI(String uri, String user, String password, RestTransport transport) {
+        this.restRequest = createRestRequest(uri, user, password, transport);
+        this.user = user;
+        this.password = password;
     }
 
     protected RestRequest createRestRequest(String uri, String user, String password) {
         return new ExecutingRestRequest(uri, user, password);
     }
 
+    protected RestRequest createRestRequest(String uri, String user, String password, RestTransport transport) {
+        return new ExecutingRestRequest(uri, user, password, transport);
+    }
+
     public RestIndexManager index() {
         return new RestIndexManager(restRequest, this);
     }
 
+    protected AsyncRestRequest createAsyncRestRequest() {
+        return new ExecutingAsyncRestRequest(restRequest.getUri(), user, password);
+    }
+
+    public synchronized AsyncRestRequest getAsyncRestRequest() {
+        flushPendingWrites();
+        if (asyncRestRequest == null) {
+            asyncRestRequest = createAsyncRestRequest();
+        }
+        return asyncRestRequest;
+    }
+
+    public synchronized void setAsyncRestRequest(AsyncRestRequest asyncRestRequest) {
+        this.asyncRestRequest = asyncRestRequest;
+    }
+
     public RestNode getNodeById(long id) {
+        final RestEntityCache<RestNode> cache = nodeCache;
+        if (cache != null) {
+            final RestNode node = cache.get(id);
+            if (node != null) return node;
+        }
         RequestResult response = restRequest.get("node/" + id);
+        final RestNode node = toRestNode(id, response);
+        if (cache != null) cache.put(id, node);
+        return node;
+    }
+
+    /**
+     * The node with the given uri, its data is loaded on first access. With the entity cache enabled
+     * the cached instance is returned.
+     */
+    public RestNode getNodeByUri(String uri) {
+        final RestNode node = new RestNode(uri, this);
+        final RestEntityCache<RestNode> cache = nodeCache;
+        if (cache == null || RestOperations.isPlaceholder(uri)) return node;
+        return cache.putIfAbsent(node.getId(), node);
+    }
+
+    public Future<RestNode> getNodeByIdAsync(final long id) {
+        return new ConvertingFuture<RequestResult, RestNode>(getAsyncRestRequest().get("node/" + id)) {
+            @Override
+            protected RestNode convert(RequestResult response) {
+                return toRestNode(id, response);
+            }
+        };
+    }
+
+    private RestNode toRestNode(long id, RequestResult response) {
         if (response.statusIs(Status.NOT_FOUND)) {
             throw new NotFoundException("" + id);
         }
         return new RestNode(response.toMap(), this);
     }
 
+    /**
+     * Fetches the nodes with one batch request, or with parallel batch requests of at most the chunk size set with
+     * {@link #setBatchChunking}. Ids without a node are reported as missing in the result.
+     */
+    public EntityLookupResult<RestNode> getNodesById(long... ids) {
+        final RestNode[] nodes = new RestNode[ids.length];
+        getEntitiesById("node", ids, nodes, nodeCache);
+        return new EntityLookupResult<RestNode>(ids, nodes);
+    }
+
+    public EntityLookupResult<RestRelationship> getRelationshipsById(long... ids) {
+        final RestRelationship[] relationships = new RestRelationship[ids.length];
+        getEntitiesById("relationship", ids, relationships, relationshipCache);
+        return new EntityLookupResult<RestRelationship>(ids, relationships);
+    }
+
+    private <T extends RestEntity> void getEntitiesById(final String typePath, final long[] ids, final T[] entities, final RestEntityCache<T> cache) {
+        final List<Integer> pending = new ArrayList<Integer>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            final T cached = cache != null ? cache.get(ids[i]) : null;
+            if (cached != null) {
+                entities[i] = cached;
+            } else {
+                pending.add(i);
+            }
+        }
+        if (pending.isEmpty()) return;
+        flushPendingWrites();
+        final int chunkSize = batchChunkSize > 0 ? batchChunkSize : pending.size();
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        for (int start = 0; start < pending.size(); start += chunkSize) {
+            final List<Integer> chunk = pending.subList(start, Math.min(start + chunkSize, pending.size()));
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    loadEntities(typePath, ids, chunk, entities, cache);
+                }
+            });
+        }
+        runInParallel(tasks);
+    }
+
+    /**
+     * A batch fails as a whole if one of its ids is missing, in that case the halves are retried separately
+     * until the missing ids are isolated.
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends RestEntity> void loadEntities(String typePath, long[] ids, List<Integer> indexes, T[] entities, RestEntityCache<T> cache) {
+        if (indexes.size() == 1) {
+            final int index = indexes.get(0);
+            final RequestResult response = executingRequest().get(typePath + "/" + ids[index]);
+            if (response.statusIs(Status.NOT_FOUND)) return;
+            if (response.statusOtherThan(Status.OK)) throw new RuntimeException("" + response.getStatus());
+            entities[index] = (T) toEntity(typePath, ids[index], response.toMap(), cache);
+            return;
+        }
+        final List<Map<String, Object>> batch = new ArrayList<Map<String, Object>>(indexes.size());
+        for (int i = 0; i < indexes.size(); i++) {
+            batch.add(MapUtil.map("method", "GET", "to", typePath + "/" + ids[indexes.get(i)], "id", i));
+        }
+        final RequestResult response = executingRequest().post("batch", batch);
+        final Object result = response.statusIs(Status.OK) ? response.toJson() : null;
+        if (!(result instanceof Collection)) {
+            final int half = indexes.size() / 2;
+            loadEntities(typePath, ids, indexes.subList(0, half), entities, cache);
+            loadEntities(typePath, ids, indexes.subList(half, indexes.size()), entities, cache);
+            return;
+        }
+        for (Map<String, Object> entry : (Collection<Map<String, Object>>) result) {
+            final int index = indexes.get(getBatchId(entry).intValue());
+            final Object body = entry.get("body");
+            if (body instanceof Map && ((Map<?, ?>) body).containsKey("self")) {
+                entities[index] = (T) toEntity(typePath, ids[index], (Map<?, ?>) body, cache);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends RestEntity> RestEntity toEntity(String typePath, long id, Map<?, ?> data, RestEntityCache<T> cache) {
+        final RestEntity entity = typePath.equals("node") ? new RestNode(data, this) : new RestRelationship(data, this);
+        if (cache != null) cache.put(id, (T) entity);
+        return entity;
+    }
+
     public RestRelationship getRelationshipById(long id) {
+        final RestEntityCache<RestRelationship> cache = relationshipCache;
+        if (cache != null) {
+            final RestRelationship relationship = cache.get(id);
+            if (relationship != null) return relationship;
+        }
         RequestResult requestResult = restRequest.get("relationship/" + id);
+        final RestRelationship relationship = toRestRelationship(id, requestResult);
+        if (cache != null) cache.put(id, relationship);
+        return relationship;
+    }
+
+    public Future<RestRelationship> getRelationshipByIdAsync(final long id) {
+        return new ConvertingFuture<RequestResult, RestRelationship>(getAsyncRestRequest().get("relationship/" + id)) {
+            @Override
+            protected RestRelationship convert(RequestResult requestResult) {
+                return toRestRelationship(id, requestResult);
+            }
+        };
+    }
+
+    private RestRelationship toRestRelationship(long id, RequestResult requestResult) {
         if (requestResult.statusIs(Status.NOT_FOUND)) {
             throw new NotFoundException("" + id);
         }
@@ -105,11 +323,25 @@ public class RestAPI {
 
 
     public RestNode createNode(Map<String, Object> props) {
-        RequestResult requestResult = restRequest.post("node", props);
+        RequestResult requestResult = writeRequest(restRequest).post("node", props);
         return createRestNode(requestResult);
     }
 
+    public Future<RestNode> createNodeAsync(Map<String, Object> props) {
+        return new ConvertingFuture<RequestResult, RestNode>(getAsyncRestRequest().post("node", props)) {
+            @Override
+            protected RestNode convert(RequestResult requestResult) {
+                return createRestNode(requestResult);
+            }
+        };
+    }
+
     public RestNode createRestNode(RequestResult requestResult) {
+        if (requestResult.isBatchResult()) {
+            final RestNode node = new RestNode("{" + requestResult.getBatchId() + "}", this);
+            autoBatch.addToRestOperation(requestResult.getBatchId(), node, createExtractor());
+            return node;
+        }
         if (requestResult.statusOtherThan(CREATED)) {
             final int status = requestResult.getStatus();
             throw new RuntimeException("" + status);
@@ -119,7 +351,7 @@ public class RestAPI {
     }
 
     public RestRelationship createRelationship(Node startNode, Node endNode, RelationshipType type, Map<String, Object> props) {
-        final RestRequest restRequest = ((RestNode) startNode).getRestRequest();
+        final RestRequest restRequest = writeRequest(((RestNode) startNode).getRestRequest());
         Map<String, Object> data = MapUtil.map("to", ((RestNode) endNode).getUri(), "type", type.name());
         if (props != null && props.size() > 0) {
             data.put("data", props);
@@ -128,8 +360,157 @@ public class RestAPI {
         return createRestRelationship(requestResult, startNode);
     }
 
-    public RestRelationship createRestRelationship(RequestResult requestResult, PropertyContainer element) {
+    public Future<RestRelationship> createRelationshipAsync(final Node startNode, Node endNode, RelationshipType type, Map<String, Object> props) {
+        final AsyncRestRequest asyncRequest = getAsyncRestRequest().with(((RestNode) startNode).getUri());
+        Map<String, Object> data = MapUtil.map("to", ((RestNode) endNode).getUri(), "type", type.name());
+        if (props != null && props.size() > 0) {
+            data.put("data", props);
+        }
+        return new ConvertingFuture<RequestResult, RestRelationship>(asyncRequest.post("relationships", data)) {
+            @Override
+            protected RestRelationship convert(RequestResult requestResult) {
+                return createRestRelationship(requestResult, startNode);
+            }
+        };
+    }
+
+    /**
+     * Checks with a cypher query limited to one row, which returns only a relationship id. Without the cypher plugin
+     * the relationships are streamed until the first one was read.
+     */
+    public boolean hasRelationship(RestNode node, Direction direction, RelationshipType... types) {
+        if (!hasCypherPlugin()) {
+            final ClosableIterable<Relationship> relationships = node.streamRelationships(direction, types);
+            try {
+                return relationships.iterator().hasNext();
+            } finally {
+                relationships.close();
+            }
+        }
+        final String statement = relationshipMatch(direction, types) + " RETURN ID(r) LIMIT 1";
+        return new RestCypherQueryEngine(this).query(statement, MapUtil.map("node", node.getId())).iterator().hasNext();
+    }
+
+    /**
+     * Counts the relationships with a cypher query, no relationship is transferred. A loop is counted once, like by
+     * the relationships endpoint. Without the cypher plugin the streamed relationships are counted.
+     */
+    public long getDegree(RestNode node, Direction direction, RelationshipType... types) {
+        if (!hasCypherPlugin()) {
+            long degree = 0;
+            final ClosableIterable<Relationship> relationships = node.streamRelationships(direction, types);
+            try {
+                final Iterator<Relationship> it = relationships.iterator();
+                while (it.hasNext()) {
+                    it.next();
+                    degree++;
+                }
+            } finally {
+                relationships.close();
+            }
+            return degree;
+        }
+        final String statement = relationshipMatch(direction, types) + " RETURN count(distinct r) AS degree";
+        final Map<String, Object> row = new RestCypherQueryEngine(this).query(statement, MapUtil.map("node", node.getId())).iterator().next();
+        return ((Number) row.get("degree")).longValue();
+    }
+
+    /**
+     * Whether the server has the cypher plugin, looked up once in the extensions listed by the service root.
+     */
+    private boolean hasCypherPlugin() {
+        Boolean available = cypherPlugin;
+        if (available == null) {
+            final RequestResult response = executingRequest().get("");
+            final Object extensions = response.statusIs(Status.OK) ? response.toMap().get("extensions") : null;
+            available = extensions instanceof Map && ((Map<?, ?>) extensions).containsKey("CypherPlugin");
+            cypherPlugin = available;
+        }
+        return available;
+    }
+
+    /**
+     * Fetches the relationships in pages of {@code pageSize} while they are iterated, the next page is requested
+     * in the background with {@link #queryAsync}, i.e. through the separate asynchronous client. Pages are cut with
+     * SKIP and LIMIT from the unsorted match, so the server walks the relationships of the node only up to the end
+     * of the page instead of matching and sorting all of them for every page. The pages are consistent as long as
+     * the relationships of the node don't change during the iteration.
+     */
+    public Iterable<Relationship> getRelationshipsPaged(RestNode node, Direction direction, int pageSize, RelationshipType... types) {
+        final String statement = relationshipMatch(direction, types) + " RETURN r SKIP {skip} LIMIT " + pageSize;
+        return new PagedRelationshipIterable(this, node.getId(), statement, pageSize);
+    }
+
+    /**
+     * With a positive page size the relationships of nodes are fetched in pages of that size as they are iterated
+     * instead of all at once, see {@link #getRelationshipsPaged}.
+     */
+    public void setRelationshipPageSize(int relationshipPageSize) {
+        this.relationshipPageSize = relationshipPageSize;
+    }
+
+    public int getRelationshipPageSize() {
+        return relationshipPageSize;
+    }
+
+    /**
+     * When enabled, fetching the relationships of a node also loads the nodes at their other ends, with their
+     * properties, in one bulk request into the entity cache, so walking to them costs no further requests.
+     * Only has an effect while the entity cache is enabled.
+     */
+    public void setNeighbourhoodPrefetch(boolean neighbourhoodPrefetch) {
+        this.neighbourhoodPrefetch = neighbourhoodPrefetch;
+    }
+
+    public boolean isNeighbourhoodPrefetch() {
+        return neighbourhoodPrefetch;
+    }
 
+    public void prefetchNeighbours(long nodeId, Iterable<Relationship> relationships) {
+        final RestEntityCache<RestNode> cache = nodeCache;
+        if (!neighbourhoodPrefetch || cache == null) return;
+        final Set<Long> neighbours = new LinkedHashSet<Long>();
+        for (Relationship relationship : relationships) {
+            final RestRelationship restRelationship = (RestRelationship) relationship;
+            final long other = restRelationship.getStartNodeId() == nodeId ? restRelationship.getEndNodeId() : restRelationship.getStartNodeId();
+            if (!cache.contains(other)) neighbours.add(other);
+        }
+        if (neighbours.isEmpty()) return;
+        final long[] ids = new long[neighbours.size()];
+        int i = 0;
+        for (Long id : neighbours) {
+            ids[i++] = id;
+        }
+        getNodesById(ids);
+    }
+
+    private static String cypherIdentifier(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (!Character.isLetterOrDigit(name.charAt(i)) && name.charAt(i) != '_') return "`" + name + "`";
+        }
+        return name;
+    }
+
+    private static String relationshipMatch(Direction direction, RelationshipType... types) {
+        final StringBuilder match = new StringBuilder("START n=node({node}) MATCH n");
+        match.append(direction == Direction.INCOMING ? "<-[r" : "-[r");
+        for (int i = 0; i < types.length; i++) {
+            match.append(i == 0 ? ":" : "|").append(cypherIdentifier(types[i].name()));
+        }
+        match.append(direction == Direction.OUTGOING ? "]->()" : "]-()");
+        return match.toString();
+    }
+
+    public Future<QueryResult<Map<String, Object>>> queryAsync(String statement, Map<String, Object> params) {
+        return new RestCypherQueryEngine(this).queryAsync(statement, params);
+    }
+
+    public RestRelationship createRestRelationship(RequestResult requestResult, PropertyContainer element) {
+        if (requestResult.isBatchResult()) {
+            final RestRelationship relationship = new RestRelationship("{" + requestResult.getBatchId() + "}", this);
+            autoBatch.addToRestOperation(requestResult.getBatchId(), relationship, createExtractor());
+            return relationship;
+        }
         if (requestResult.statusOtherThan(CREATED)) {
             final int status = requestResult.getStatus();
             throw new RuntimeException("" + status);
@@ -184,22 +565,286 @@ public class RestAPI {
         this.propertyRefetchTimeInMillis = propertyRefetchTimeInMillis;
     }
 
+    /**
+     * How long the properties of the given entity are used before they are refreshed.
+     */
+    public long getPropertyTimeToLive(RestEntity entity) {
+        final PropertyRevalidation revalidation = propertyRevalidation;
+        if (revalidation == null) return propertyRefetchTimeInMillis;
+        return revalidation.getTimeToLive(entity, propertyRefetchTimeInMillis);
+    }
+
+    /**
+     * Refreshes expired properties by revalidating them instead of downloading them again, null to always download.
+     */
+    public void setPropertyRevalidation(PropertyRevalidation propertyRevalidation) {
+        this.propertyRevalidation = propertyRevalidation;
+    }
+
+    public PropertyRevalidation getPropertyRevalidation() {
+        return propertyRevalidation;
+    }
+
+    /**
+     * Keeps up to {@code maxEntries} nodes and as many relationships, each with at most about {@code maxBytes}
+     * of data, so that repeated lookups by id and the start and end nodes of relationships return the same
+     * instances instead of fetching them again.
+     */
+    public void setEntityCache(int maxEntries, long maxBytes) {
+        this.nodeCache = new RestEntityCache<RestNode>(maxEntries, maxBytes);
+        this.relationshipCache = new RestEntityCache<RestRelationship>(maxEntries, maxBytes);
+    }
+
+    public void disableEntityCache() {
+        this.nodeCache = null;
+        this.relationshipCache = null;
+    }
+
+    public RestEntityCache<RestNode> getNodeCache() {
+        return nodeCache;
+    }
+
+    public RestEntityCache<RestRelationship> getRelationshipCache() {
+        return relationshipCache;
+    }
+
+    /**
+     * Recounts the size of the cached entity after its properties were loaded or changed.
+     */
+    @SuppressWarnings("unchecked")
+    public void updateCachedSize(RestEntity entity) {
+        if (RestOperations.isPlaceholder(entity.getUri())) return;
+        final RestEntityCache<RestEntity> cache = (RestEntityCache<RestEntity>) (entity instanceof RestNode ? nodeCache : entity instanceof RestRelationship ? relationshipCache : null);
+        if (cache != null) cache.resize(entity.getId(), entity);
+    }
+
+    private void evictFromCache(RestEntity entity) {
+        if (RestOperations.isPlaceholder(entity.getUri())) return;
+        final RestEntityCache<?> cache = entity instanceof RestNode ? nodeCache : relationshipCache;
+        if (cache != null) cache.remove(entity.getId());
+    }
+
+
+    /**
+     * Switches to auto batching: node and relationship creation, property updates, deletes and index additions
+     * are buffered and sent through the batch endpoint when {@code maxOperations} writes are pending, the oldest
+     * pending write is {@code maxDelayMillis} old (sent by a timer), before any read, or on
+     * {@link #flushPendingWrites()}. Entities created meanwhile carry a placeholder uri until their batch was sent,
+     * asking for their id sends it.
+     */
+    public synchronized void setAutoBatching(int maxOperations, long maxDelayMillis) {
+        disableAutoBatching();
+        this.autoBatch = new AutoBatch(this, maxOperations, maxDelayMillis);
+        this.restRequest = new AutoBatchingRestRequest(restRequest, autoBatch);
+    }
+
+    public synchronized void disableAutoBatching() {
+        if (autoBatch == null) return;
+        autoBatch.flush();
+        this.restRequest = executingRequest();
+        this.autoBatch = null;
+    }
+
+    public boolean isAutoBatching() {
+        return autoBatch != null;
+    }
+
+    /**
+     * With write buffering property changes are applied to the loaded properties and collected per entity, only the
+     * last value of each changed key is then written, in a single batch request per entity, on
+     * {@link #flushPendingWrites()}, at the end of a transaction, or before its properties are removed or refetched.
+     */
+    public void setPropertyWriteBuffering(boolean propertyWriteBuffering) {
+        this.propertyWriteBuffering = propertyWriteBuffering;
+        if (!propertyWriteBuffering) flushBufferedProperties();
+    }
+
+    public boolean isPropertyWriteBuffering() {
+        return propertyWriteBuffering;
+    }
+
+    public void flushProperties(RestEntity entity) {
+        bufferedEntities.remove(entity);
+        final Map<String, Object> properties = entity.takePendingProperties();
+        if (properties == null) return;
+        if (properties.size() == 1 || autoBatch != null) {
+            final RestRequest request = writeRequest(entity.getRestRequest());
+            for (Map.Entry<String, Object> property : properties.entrySet()) {
+                request.put("properties/" + property.getKey(), property.getValue());
+            }
+            return;
+        }
+        final List<Map<String, Object>> batch = new ArrayList<Map<String, Object>>(properties.size());
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            batch.add(MapUtil.map("method", "PUT", "to", entity.getUri() + "/properties/" + property.getKey(), "body", property.getValue(), "id", batch.size()));
+        }
+        final RequestResult result = executingRequest().post("batch", batch);
+        if (result.statusOtherThan(Status.OK)) {
+            throw new RuntimeException(String.format("Error writing properties %s of %s: status %d", properties.keySet(), entity, result.getStatus()));
+        }
+    }
+
+    /**
+     * Writes the buffered property changes, called before queries and index lookups so that they see them.
+     */
+    public void flushBufferedProperties() {
+        if (bufferedEntities.isEmpty()) return;
+        final List<RestEntity> entities;
+        synchronized (bufferedEntities) {
+            entities = new ArrayList<RestEntity>(bufferedEntities);
+            bufferedEntities.clear();
+        }
+        for (RestEntity entity : entities) {
+            flushProperties(entity);
+        }
+    }
+
+    public void flushPendingWrites() {
+        flushBufferedProperties();
+        final AutoBatch batch = autoBatch;
+        if (batch != null) batch.flush();
+    }
+
+    /**
+     * Drops the writes buffered by auto batching, e.g. after sending them failed because of one of them.
+     */
+    public void discardPendingWrites() {
+        final AutoBatch batch = autoBatch;
+        if (batch != null) batch.discard();
+    }
+
+    private RestRequest writeRequest(RestRequest request) {
+        if (request instanceof AutoBatchingRestRequest) {
+            return ((AutoBatchingRestRequest) request).deferred();
+        }
+        return request;
+    }
+
+    private RestRequest executingRequest() {
+        if (restRequest instanceof AutoBatchingRestRequest) {
+            return ((AutoBatchingRestRequest) restRequest).getDelegate();
+        }
+        return restRequest;
+    }
 
     public <T> T executeBatch(BatchCallback<T> batchCallback) {
-        BatchRestAPI batchRestApi = new BatchRestAPI(this.restRequest.getUri(), (ExecutingRestRequest) this.restRequest);
+        flushPendingWrites();
+        BatchRestAPI batchRestApi = new BatchRestAPI(this.restRequest.getUri(), executingRequest());
         T batchResult = batchCallback.recordBatch(batchRestApi);
         batchRestApi.stop();
-        RestOperations operations = batchRestApi.getRecordedOperations();         
-        RequestResult response = this.restRequest.post("batch", createBatchRequestData(operations));      
-        Map<Long, Object> mappedObjects = convertRequestResultToEntities(operations, response);
-        updateRestOperations(operations, mappedObjects);
+        executeBatchOperations(batchRestApi.getRecordedOperations());
         return batchResult;
     }
 
-    private Collection<Map<String, Object>> createBatchRequestData(RestOperations operations) {
+    /**
+     * Batches with more than {@code chunkSize} operations are sent as several batch requests of at most that size,
+     * chunks that don't depend on each other are sent concurrently, up to {@code parallelism} at a time.
+     * A chunk size of 0 sends every batch in a single request.
+     * <p>
+     * Each chunk is executed by the server in its own transaction, so a chunked batch is not atomic: when a chunk
+     * fails the chunks sent before it stay committed. Keep the chunk size at 0, the default, for batches that have
+     * to be applied all or nothing.
+     */
+    public synchronized void setBatchChunking(int chunkSize, int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be at least 1 but was " + parallelism);
+        this.batchChunkSize = chunkSize;
+        this.batchParallelism = parallelism;
+        if (batchExecutor != null) batchExecutor.shutdown();
+        this.batchExecutor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "rest-batch-chunk");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }) : null;
+    }
+
+    /**
+     * Sends the recorded operations to the batch endpoint and updates the entities registered with them.
+     * Operations already executed by an earlier, partly failed call are skipped.
+     */
+    public void executeBatchOperations(final RestOperations operations) {
+        final List<RestOperation> pending = operations.getPendingOperations();
+        if (pending.isEmpty()) return;
+        if (batchChunkSize <= 0 || pending.size() <= batchChunkSize) {
+            executeBatchChunk(operations, pending);
+            return;
+        }
+        final BatchPlan plan = new BatchPlan(operations, batchChunkSize, restRequest.getUri());
+        for (List<List<RestOperation>> wave : plan.getWaves()) {
+            executeBatchWave(operations, wave);
+        }
+    }
+
+    private void executeBatchWave(final RestOperations operations, List<List<RestOperation>> wave) {
+        final List<Runnable> tasks = new ArrayList<Runnable>(wave.size());
+        for (final List<RestOperation> chunk : wave) {
+            tasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    executeBatchChunk(operations, chunk);
+                }
+            });
+        }
+        runInParallel(tasks);
+    }
+
+    /**
+     * Runs the tasks on the batch executor if there is one and waits for all of them, rethrowing the first failure.
+     */
+    private void runInParallel(List<Runnable> tasks) {
+        final ExecutorService executor = batchExecutor;
+        if (executor == null || tasks.size() == 1) {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            return;
+        }
+        final List<Future<?>> results = new ArrayList<Future<?>>(tasks.size());
+        for (Runnable task : tasks) {
+            results.add(executor.submit(task));
+        }
+        RuntimeException failure = null;
+        for (Future<?> result : results) {
+            try {
+                result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) failure = new RuntimeException(e);
+            } catch (ExecutionException e) {
+                if (failure == null) failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * Sends the chunk and updates each recorded entity as soon as its sub result was read from the
+     * streamed response, so only one sub result is held in memory at a time.
+     */
+    private void executeBatchChunk(RestOperations operations, Collection<RestOperation> chunk) {
+        RequestResult response = executingRequest().postStreaming("batch", createBatchRequestData(operations, chunk));
+        final Set<Long> updated = new HashSet<Long>(chunk.size());
+        final ClosableIterator<Object> results = response.streamArray();
+        try {
+            while (results.hasNext()) {
+                updated.add(updateRestOperation(operations, results.next()));
+            }
+        } finally {
+            results.close();
+        }
+        for (RestOperation operation : chunk) {
+            if (!updated.contains(operation.getBatchId())) operation.updateEntity(null, this);
+            operation.setExecuted();
+        }
+    }
+
+    private Collection<Map<String, Object>> createBatchRequestData(RestOperations operations, Collection<RestOperation> chunk) {
         Collection<Map<String, Object>> batch = new ArrayList<Map<String, Object>>();
         final String baseUri = restRequest.getUri();
-        for (RestOperation operation : operations.getRecordedRequests().values()) {
+        final boolean chunked = chunk.size() < operations.size();
+        for (RestOperation operation : chunk) {
             Map<String, Object> params = new HashMap<String, Object>();
             params.put("method", operation.getMethod());
             if (operation.isSameUri(baseUri)) {
@@ -210,6 +855,11 @@ public class RestAPI {
             if (operation.getData() != null) {
                 params.put("body", operation.getData());
             }
+            if (chunked) {
+                // placeholders of operations sent in earlier chunks are not known to this batch request
+                params.put("to", BatchPlan.resolvePlaceholders(params.get("to"), operations));
+                if (operation.getData() != null) params.put("body", BatchPlan.resolvePlaceholders(operation.getData(), operations));
+            }
             params.put("id", operation.getBatchId());
             batch.add(params);
         }
@@ -226,36 +876,24 @@ public class RestAPI {
     }
 
     @SuppressWarnings("unchecked")
-    private Map<Long, Object> convertRequestResultToEntities(RestOperations operations, RequestResult response) {
-        Object result = JsonHelper.readJson(response.getEntity());
-        if (RestResultException.isExceptionResult(result)) {
-            throw new RestResultException(result);
-        }
-        Collection<Map<String, Object>> responseCollection = (Collection<Map<String, Object>>) result;
-        Map<Long, Object> mappedObjects = new HashMap<Long, Object>(responseCollection.size());
-        for (Map<String, Object> entry : responseCollection) {
-            final Long batchId = getBatchId(entry);
-            final RequestResult subResult = RequestResult.extractFrom(entry);      
-            RestOperation restOperation = operations.getOperation(batchId);
-            if (restOperation.getEntity() != null){
-                Object entity = restOperation.getResultConverter().convertFromRepresentation(subResult);
-                mappedObjects.put(batchId, entity);
-            }
-           
+    private Long updateRestOperation(RestOperations operations, Object element) {
+        final Map<String, Object> entry = (Map<String, Object>) element;
+        final Long batchId = getBatchId(entry);
+        final RequestResult subResult = RequestResult.extractFrom(entry);
+        RestOperation restOperation = operations.getOperation(batchId);
+        restOperation.setLocation(subResult.getLocation());
+        Object entity = null;
+        if (restOperation.getEntity() != null){
+            entity = restOperation.getResultConverter().convertFromRepresentation(subResult);
         }
-        return mappedObjects;
+        restOperation.updateEntity(entity, this);
+        return batchId;
     }
 
     private Long getBatchId(Map<String, Object> entry) {
         return ((Number) entry.get("id")).longValue();
     }
 
-    private void updateRestOperations(RestOperations operations, Map<Long, Object> mappedObjects) {
-        for (RestOperation operation : operations.getRecordedRequests().values()) {
-            operation.updateEntity(mappedObjects.get(operation.getBatchId()), this);
-        }
-    }
-
 
     @SuppressWarnings("unchecked")
     public Iterable<Relationship> wrapRelationships(RequestResult requestResult) {
@@ -266,31 +904,131 @@ public class RestAPI {
         return new RestEntityExtractor(this);
     }
 
+    /**
+     * Looks up the exact key and value with cypher, the hits are fetched in pages of {@code pageSize} while they are
+     * iterated, see {@link PagedIndexHits}.
+     */
     @SuppressWarnings("unchecked")
-    public <S extends PropertyContainer> IndexHits<S> queryIndex(String indexPath, Class<S> entityType) {
-        RequestResult response = restRequest.get(indexPath);
+    public <S extends PropertyContainer> RestIndexHits<S> getIndexHitsPaged(RestIndex<S> index, String key, Object value, int pageSize) {
+        final String start = indexStart(index, cypherIdentifier(key) + "={value}");
+        return new PagedIndexHits<S>(this, start, MapUtil.map("value", value), pageSize);
+    }
+
+    /**
+     * Runs the lucene query with cypher, the hits are fetched in pages of {@code pageSize} while they are iterated.
+     */
+    public <S extends PropertyContainer> RestIndexHits<S> queryIndexPaged(RestIndex<S> index, String query, int pageSize) {
+        return new PagedIndexHits<S>(this, indexStart(index, "{query}"), MapUtil.map("query", query), pageSize);
+    }
+
+    private static String indexStart(RestIndex<?> index, String lookup) {
+        final String type = Node.class.isAssignableFrom(index.getEntityType()) ? "node" : "relationship";
+        return "START e=" + type + ":" + cypherIdentifier(index.getIndexName()) + "(" + lookup + ")";
+    }
+
+    /**
+     * With a positive page size, exact lookups and string queries on indexes return hits that are fetched in pages
+     * of that size as they are iterated instead of all at once. The hits are then ordered by id.
+     */
+    public void setIndexHitsPageSize(int indexHitsPageSize) {
+        this.indexHitsPageSize = indexHitsPageSize;
+    }
+
+    public int getIndexHitsPageSize() {
+        return indexHitsPageSize;
+    }
+
+    public <S extends PropertyContainer> RestIndexHits<S> queryIndex(String indexPath, Class<S> entityType) {
+        flushBufferedProperties();
+        RequestResult response = restRequest.getStreaming(indexPath, null);
         if (response.statusIs(Response.Status.OK)) {
             return new RestIndexHitsConverter(this, entityType).convertFromRepresentation(response);
         } else {
+            response.close();
             return new SimpleIndexHits<S>(Collections.emptyList(), 0, entityType, this);
         }
     }
+
+    /**
+     * Decodes the hits while they are iterated instead of reading them up front, they have to be closed if they
+     * are not iterated to the end.
+     */
+    public <S extends PropertyContainer> RestIndexHits<S> queryIndexStreaming(String indexPath, Class<S> entityType) {
+        flushBufferedProperties();
+        final RequestResult response = restRequest.getStreaming(indexPath, null);
+        if (response.statusOtherThan(Response.Status.OK)) {
+            response.close();
+            return new SimpleIndexHits<S>(Collections.emptyList(), 0, entityType, this);
+        }
+        return new StreamingIndexHits<S>(response.streamArray(), this);
+    }
+
+    /**
+     * Decodes the relationships at the path relative to the node while they are iterated instead of reading them
+     * up front, see {@link StreamingIterable}.
+     */
+    public ClosableIterable<Relationship> streamRelationships(RestNode node, String path) {
+        return new RelationshipIterableConverter(this).stream(node.getRestRequest().getStreaming(path, null));
+    }
     
     public void deleteEntity(RestEntity entity) {
-        entity.getRestRequest().delete( "" );
+        bufferedEntities.remove(entity);
+        entity.discardPendingProperties();
+        evictFromCache(entity);
+        writeRequest(entity.getRestRequest()).delete( "" );
     }
     public IndexInfo indexInfo(final String indexType) {
+        final long timeToLive = indexInfoTimeToLive;
+        if (timeToLive > 0) {
+            final CachedIndexInfo cached = indexInfos.get(indexType);
+            if (cached != null && System.currentTimeMillis() - cached.retrieved <= timeToLive) return cached.indexInfo;
+        }
         RequestResult response = restRequest.get("index/" + indexType);
-        return new RetrievedIndexInfo(response);
+        final IndexInfo indexInfo = new RetrievedIndexInfo(response);
+        if (timeToLive > 0) indexInfos.put(indexType, new CachedIndexInfo(indexInfo));
+        return indexInfo;
+    }
+
+    /**
+     * Keeps the retrieved index metadata for the given time, so that looking up index handles needs no request.
+     * Creating or deleting an index through this api drops the cached metadata of its type. 0 disables the cache.
+     */
+    public void setIndexInfoTimeToLive(long indexInfoTimeToLive) {
+        this.indexInfoTimeToLive = indexInfoTimeToLive;
+        if (indexInfoTimeToLive <= 0) indexInfos.clear();
+    }
+
+    public long getIndexInfoTimeToLive() {
+        return indexInfoTimeToLive;
+    }
+
+    public void invalidateIndexInfo(String indexType) {
+        indexInfos.remove(indexType);
+    }
+
+    private static class CachedIndexInfo {
+        private final IndexInfo indexInfo;
+        private final long retrieved = System.currentTimeMillis();
+
+        CachedIndexInfo(IndexInfo indexInfo) {
+            this.indexInfo = indexInfo;
+        }
     }
     
     public void setPropertyOnEntity( RestEntity entity, String key, Object value ) {
-        entity.getRestRequest().put( "properties/" + key, value);
+        if (propertyWriteBuffering) {
+            entity.bufferProperty(key, value);
+            bufferedEntities.add(entity);
+            return;
+        }
+        writeRequest(entity.getRestRequest()).put( "properties/" + key, value);
         entity.invalidatePropertyData();
     }
     
     @SuppressWarnings("unchecked")
     public Map<String, Object> getPropertiesFromEntity(RestEntity entity){
+        final PropertyRevalidation revalidation = propertyRevalidation;
+        if (revalidation != null) return revalidation.refresh(entity);
         RequestResult response = entity.getRestRequest().get( "properties" );
         Map<String, Object> properties;
         boolean ok = response.statusIs( Status.OK );
@@ -310,41 +1048,203 @@ public class RestAPI {
     
     public void delete(RestIndex index) {
         deleteIndex(index, index.indexPath(null,null));
+        invalidateIndexInfo(Node.class.isAssignableFrom(index.getEntityType()) ? RestIndexManager.NODE : RestIndexManager.RELATIONSHIP);
     }
     
     public <T> void removeFromIndex( RestIndex index, T entity, String key, Object value ) {
-        final String indexPath = index.indexPath(key, value) + "/" + ((RestEntity) entity).getId();
-        deleteIndex(index,indexPath);
+        removeIndexEntry(index, indexEntryPath(index, entity, key, value));
     }  
 
     public <T> void removeFromIndex(RestIndex index, T entity, String key) {
-        deleteIndex(index, index.indexPath(key, null) + "/" + ((RestEntity) entity).getId());
+        removeIndexEntry(index, indexEntryPath(index, entity, key, null));
     }
 
     public <T> void removeFromIndex(RestIndex index, T entity) {       
-        deleteIndex(index, index.indexPath( null, null) + "/" + ( (RestEntity) entity ).getId());
+        removeIndexEntry(index, indexEntryPath(index, entity, null, null));
+    }
+
+    /**
+     * Path of the entity below the index, narrowed to the key and value if given. A value without key is ignored.
+     */
+    protected static String indexEntryPath(RestIndex index, Object entity, String key, Object value) {
+        if (value instanceof ValueContext) {
+            value = ((ValueContext)value).getCorrectValue();
+        }
+        return index.indexPath(key, key != null ? value : null) + "/" + ((RestEntity) entity).getId();
+    }
+
+    private void removeIndexEntry(RestIndex index, String indexPath) {
+        writeRequest(index.getRestRequest()).delete(indexPath);
     }
 
     
     public <T> void addToIndex( T entity, RestIndex index,  String key, Object value ) {
+        final RestRequest request = writeRequest(index.getRestRequest());
         final RestEntity restEntity = (RestEntity) entity;
-        String uri = restEntity.getUri();       
+        final Map<String, Object> data = indexEntryData(restEntity, key, value);
+        final RequestResult result = request.post(index.indexPath(), data);       
+        if (!result.isBatchResult() && result.statusOtherThan(Status.CREATED)) throw new RuntimeException(String.format("Error adding element %d %s %s to index %s", restEntity.getId(), key, value, index.getIndexName()));
+    }
+
+    private static Map<String, Object> indexEntryData(RestEntity entity, String key, Object value) {
         if (value instanceof ValueContext) {
             value = ((ValueContext)value).getCorrectValue();
         }
-        final Map<String, Object> data = MapUtil.map("key", key, "value", value, "uri", uri);       
-        final RequestResult result = index.getRestRequest().post(index.indexPath(), data);       
-        if (result.statusOtherThan(Status.CREATED)) throw new RuntimeException(String.format("Error adding element %d %s %s to index %s", restEntity.getId(), key, value, index.getIndexName()));
+        return MapUtil.map("key", key, "value", value, "uri", entity.getUri());
+    }
+
+    /**
+     * Adds the entries in batch requests of the chunk size set with {@link #setBatchChunking} (or
+     * {@value #DEFAULT_INDEX_BATCH_SIZE}), with up to its parallelism batches in flight. Entries are taken from the
+     * iterator only as batches are sent. Entries that can't be added are reported in the result, a batch failing
+     * because of such entries is split up until they are isolated. Authentication, server and transport errors
+     * abort the load with an exception instead.
+     */
+    public <T extends PropertyContainer> IndexUpdateResult<T> addToIndex(RestIndex<T> index, Iterator<IndexEntry<T>> entries) {
+        return updateIndex(index, entries, INDEX_ADDITION);
+    }
+
+    /**
+     * Removes the entries like {@link #addToIndex(RestIndex, Iterator)} adds them, the key and value of an entry are
+     * optional.
+     */
+    public <T extends PropertyContainer> IndexUpdateResult<T> removeFromIndex(RestIndex<T> index, Iterator<IndexEntry<T>> entries) {
+        return updateIndex(index, entries, INDEX_REMOVAL);
+    }
+
+    private static abstract class IndexUpdate {
+        private final String method;
+        private final Status expectedStatus;
+
+        IndexUpdate(String method, Status expectedStatus) {
+            this.method = method;
+            this.expectedStatus = expectedStatus;
+        }
+
+        abstract String path(RestIndex<?> index, IndexEntry<?> entry);
+
+        abstract Map<String, Object> data(IndexEntry<?> entry);
+    }
+
+    private static final IndexUpdate INDEX_ADDITION = new IndexUpdate("POST", Status.CREATED) {
+        @Override
+        String path(RestIndex<?> index, IndexEntry<?> entry) {
+            return index.indexPath();
+        }
+
+        @Override
+        Map<String, Object> data(IndexEntry<?> entry) {
+            return indexEntryData((RestEntity) entry.getEntity(), entry.getKey(), entry.getValue());
+        }
+    };
+
+    private static final IndexUpdate INDEX_REMOVAL = new IndexUpdate("DELETE", Status.NO_CONTENT) {
+        @Override
+        String path(RestIndex<?> index, IndexEntry<?> entry) {
+            return indexEntryPath(index, entry.getEntity(), entry.getKey(), entry.getValue());
+        }
+
+        @Override
+        Map<String, Object> data(IndexEntry<?> entry) {
+            return null;
+        }
+    };
+
+    private <T extends PropertyContainer> IndexUpdateResult<T> updateIndex(final RestIndex<T> index, Iterator<IndexEntry<T>> entries, final IndexUpdate update) {
+        flushPendingWrites();
+        final IndexUpdateResult<T> result = new IndexUpdateResult<T>();
+        final int batchSize = batchChunkSize > 0 ? batchChunkSize : DEFAULT_INDEX_BATCH_SIZE;
+        final ExecutorService executor = batchExecutor;
+        final LinkedList<Future<?>> inFlight = new LinkedList<Future<?>>();
+        try {
+            while (entries.hasNext()) {
+                final List<IndexEntry<T>> chunk = new ArrayList<IndexEntry<T>>(batchSize);
+                while (entries.hasNext() && chunk.size() < batchSize) {
+                    chunk.add(entries.next());
+                }
+                if (executor == null) {
+                    updateIndexChunk(index, chunk, update, result);
+                    continue;
+                }
+                if (inFlight.size() >= batchParallelism) awaitQuietly(inFlight.removeFirst());
+                inFlight.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        updateIndexChunk(index, chunk, update, result);
+                    }
+                }));
+            }
+            while (!inFlight.isEmpty()) {
+                awaitQuietly(inFlight.removeFirst());
+            }
+            return result;
+        } catch (RuntimeException e) {
+            for (Future<?> future : inFlight) {
+                future.cancel(false);
+            }
+            throw e;
+        }
+    }
+
+    private static void awaitQuietly(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private <T extends PropertyContainer> void updateIndexChunk(RestIndex<T> index, List<IndexEntry<T>> chunk, IndexUpdate update, IndexUpdateResult<T> result) {
+        final RequestResult response;
+        if (chunk.size() == 1) {
+            final IndexEntry<T> entry = chunk.get(0);
+            final String path = update.path(index, entry);
+            response = update.data(entry) != null ? executingRequest().post(path, update.data(entry)) : executingRequest().delete(path);
+        } else {
+            final List<Map<String, Object>> batch = new ArrayList<Map<String, Object>>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                final IndexEntry<T> entry = chunk.get(i);
+                final Map<String, Object> operation = MapUtil.map("method", update.method, "to", update.path(index, entry), "id", i);
+                final Map<String, Object> data = update.data(entry);
+                if (data != null) operation.put("body", data);
+                batch.add(operation);
+            }
+            response = executingRequest().post("batch", batch);
+        }
+        if (response.statusIs(chunk.size() == 1 ? update.expectedStatus : Status.OK)) {
+            result.updated(chunk.size());
+            return;
+        }
+        if (!isEntryFailure(response, chunk.size() > 1)) {
+            throw new RuntimeException(String.format("Error updating index %s: status %d %s", index.getIndexName(), response.getStatus(), response.getEntity()));
+        }
+        if (chunk.size() == 1) {
+            result.failed(chunk, "Status " + response.getStatus() + " " + response.getEntity());
+        } else {
+            final int half = chunk.size() / 2;
+            updateIndexChunk(index, chunk.subList(0, half), update, result);
+            updateIndexChunk(index, chunk.subList(half, chunk.size()), update, result);
+        }
+    }
+
+    /**
+     * Whether the entry itself was rejected, as opposed to the request failing because of authentication or the server.
+     * A batch with a rejected operation fails as a whole with a {@code BatchOperationFailedException}.
+     */
+    private static boolean isEntryFailure(RequestResult response, boolean batch) {
+        final int status = response.getStatus();
+        if (status == Status.BAD_REQUEST.getStatusCode() || status == Status.NOT_FOUND.getStatusCode()) return true;
+        return batch && status == Status.INTERNAL_SERVER_ERROR.getStatusCode()
+                && String.valueOf(response.getEntity()).contains("BatchOperationFailedException");
     }
 
     @SuppressWarnings("unchecked")
     public <T> T putIfAbsent( T entity, RestIndex index,  String key, Object value ) {
         final RestEntity restEntity = (RestEntity) entity;
-        String uri = restEntity.getUri();
-        if (value instanceof ValueContext) {
-            value = ((ValueContext)value).getCorrectValue();
-        }
-        final Map<String, Object> data = MapUtil.map("key", key, "value", value, "uri", uri);
+        final Map<String, Object> data = indexEntryData(restEntity, key, value);
         final RequestResult result = index.getRestRequest().post(index.uniqueIndexPath(), data);
         if (result.statusIs(Response.Status.CREATED)) {
             if (index.getEntityType().equals(Node.class)) return (T)createRestNode(result);
@@ -385,4 +1285,16 @@ public class RestAPI {
         return RestInvocationHandler.getInvocationProxy(type, this, new ServiceInvocation(this, type, baseUri));
      }
 
+    public synchronized void shutdown() {
+        flushPendingWrites();
+        if (batchExecutor != null) {
+            batchExecutor.shutdown();
+            batchExecutor = null;
+        }
+        if (asyncRestRequest != null) {
+            asyncRestRequest.shutdown();
+            asyncRestRequest = null;
+        }
+    }
+
 }
@@ -20,9 +20,13 @@
 package org.neo4j.rest.graphdb;
 
 
+import org.neo4j.graphdb.Lock;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.PropertyContainer;
 import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.rest.graphdb.index.RestIndexManager;
+import org.neo4j.rest.graphdb.transport.RestTransport;
 
 
 public class RestGraphDatabase extends AbstractRemoteDatabase {
@@ -38,7 +42,11 @@ public class RestGraphDatabase extends AbstractRemoteDatabase {
     }
 
     public RestGraphDatabase( String uri, String user, String password ) {
-        this(new ExecutingRestRequest( uri, user, password ));
+        this(new RestAPI( uri, user, password ));
+    }
+
+    public RestGraphDatabase( String uri, String user, String password, RestTransport transport ) {
+        this(new RestAPI( uri, user, password, transport ));
     }
     
     public RestGraphDatabase( RestRequest restRequest){
@@ -83,5 +91,45 @@ public class RestGraphDatabase extends AbstractRemoteDatabase {
     public long getPropertyRefetchTimeInMillis() {
         return this.restAPI.getPropertyRefetchTimeInMillis();
 	}
+
+    /**
+     * Finishing the transaction sends the writes buffered in auto batching mode.
+     */
+    @Override
+    public Transaction beginTx() {
+        final Transaction tx = super.beginTx();
+        return new Transaction() {
+            @Override
+            public void success() {
+                tx.success();
+            }
+
+            @Override
+            public void finish() {
+                restAPI.flushPendingWrites();
+                tx.finish();
+            }
+
+            @Override
+            public void failure() {
+                tx.failure();
+            }
+
+            @Override
+            public Lock acquireWriteLock(PropertyContainer propertyContainer) {
+                return tx.acquireWriteLock(propertyContainer);
+            }
+
+            @Override
+            public Lock acquireReadLock(PropertyContainer propertyContainer) {
+                return tx.acquireReadLock(propertyContainer);
+            }
+        };
+    }
+
+    @Override
+    public void shutdown() {
+        this.restAPI.shutdown();
+    }
 }
 
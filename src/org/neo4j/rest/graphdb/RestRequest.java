@@ -33,6 +33,18 @@ public interface RestRequest {
 
     RequestResult put(String path, Object data);
 
+    /**
+     * Like {@link #get(String, Object)} but the result keeps the response body as a stream, see {@link RequestResult#streamFrom}.
+     */
+    RequestResult getStreaming(String path, Object data);
+
+    RequestResult postStreaming(String path, Object data);
+
+    /**
+     * Conditional GET, answered with 304 (not modified) when the resource still matches the given entity tag.
+     */
+    RequestResult getIfNoneMatch(String path, String entityTag);
+
     RestRequest with(String uri);
 
     String getUri();
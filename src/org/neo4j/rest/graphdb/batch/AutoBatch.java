@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.batch;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.rest.graphdb.RequestResult;
+import org.neo4j.rest.graphdb.RestAPI;
+import org.neo4j.rest.graphdb.RestRequest;
+import org.neo4j.rest.graphdb.batch.RestOperations.RestOperation;
+import org.neo4j.rest.graphdb.batch.RestOperations.RestOperation.Methods;
+import org.neo4j.rest.graphdb.converter.RestResultConverter;
+
+/**
+ * Write buffer of a {@link RestAPI} in auto batching mode. Writes are recorded as {@link RestOperations} and sent
+ * to the batch endpoint once {@code maxOperations} are pending, before any read is executed, or once the oldest
+ * pending write is {@code maxDelayMillis} old. The latter is also done by a timer, so a lone write doesn't stay
+ * buffered, a failure of such a timed flush is thrown by the next call of the batch.
+ */
+public class AutoBatch {
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "rest-auto-batch-timer");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final RestAPI restApi;
+    private final int maxOperations;
+    private final long maxDelayMillis;
+    private final RestOperations operations = new RestOperations();
+    private long firstRecordedMillis;
+    private long generation;
+    private boolean flushing;
+    private RuntimeException timedFlushFailure;
+
+    public AutoBatch(RestAPI restApi, int maxOperations, long maxDelayMillis) {
+        if (maxOperations < 1) throw new IllegalArgumentException("maxOperations must be at least 1 but was " + maxOperations);
+        this.restApi = restApi;
+        this.maxOperations = maxOperations;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    synchronized RequestResult record(Methods method, String path, Object data, String baseUri) {
+        throwTimedFlushFailure();
+        if (operations.isEmpty()) {
+            firstRecordedMillis = System.currentTimeMillis();
+            scheduleFlush(++generation);
+        }
+        return operations.record(method, path, data, baseUri);
+    }
+
+    private void scheduleFlush(final long scheduledGeneration) {
+        timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (AutoBatch.this) {
+                    if (generation != scheduledGeneration) return;
+                    try {
+                        flush();
+                    } catch (RuntimeException e) {
+                        timedFlushFailure = e;
+                    }
+                }
+            }
+        }, maxDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void throwTimedFlushFailure() {
+        final RuntimeException failure = timedFlushFailure;
+        if (failure == null) return;
+        timedFlushFailure = null;
+        throw new RuntimeException("Sending buffered writes after " + maxDelayMillis + " ms failed", failure);
+    }
+
+    private boolean isDue() {
+        if (operations.isEmpty()) return false;
+        return operations.size() >= maxOperations || System.currentTimeMillis() - firstRecordedMillis >= maxDelayMillis;
+    }
+
+    public synchronized void flushIfDue() {
+        if (isDue()) flush();
+    }
+
+    /**
+     * Sends all pending writes in one batch request and updates the placeholder entities returned for them.
+     * If that fails the writes stay pending, the next flush sends those that were not executed again.
+     */
+    public synchronized void flush() {
+        throwTimedFlushFailure();
+        if (flushing || operations.isEmpty()) return;
+        generation++;
+        flushing = true;
+        try {
+            restApi.executeBatchOperations(operations);
+            operations.clear();
+        } finally {
+            flushing = false;
+        }
+    }
+
+    /**
+     * Drops the pending writes, e.g. after a flush failed because of one of them. Their entities keep their
+     * placeholder uris.
+     */
+    public synchronized void discard() {
+        generation++;
+        timedFlushFailure = null;
+        operations.clear();
+    }
+
+    public synchronized boolean hasPendingWrites() {
+        return !operations.isEmpty();
+    }
+
+    public synchronized void addToRestOperation(long batchId, Object entity, RestResultConverter resultConverter) {
+        operations.addToRestOperation(batchId, entity, resultConverter);
+    }
+
+    RestOperation pendingOperation(String uri) {
+        if (!RestOperations.isPlaceholder(uri)) return null;
+        // checked before locking, chunks of a flush may update entities from other threads
+        synchronized (this) {
+            return operations.getOperation(RestOperations.placeholderId(uri));
+        }
+    }
+
+    /**
+     * A request that records its writes into this batch instead of executing them. Sends the pending writes
+     * first if a threshold was reached, so that the caller sees the final uris of entities created by them.
+     */
+    RestRequest recorder(AutoBatchingRestRequest restRequest) {
+        flushIfDue();
+        return new Recorder(restRequest);
+    }
+
+    private class Recorder extends RecordingRestRequest {
+        private final RestRequest restRequest;
+
+        Recorder(RestRequest restRequest) {
+            super(restRequest, operations);
+            this.restRequest = restRequest;
+        }
+
+        @Override
+        public RequestResult record(Methods method, String path, Object data, String baseUri) {
+            return AutoBatch.this.record(method, path, data, baseUri);
+        }
+
+        @Override
+        public RestRequest with(String uri) {
+            return new Recorder(restRequest.with(uri));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.batch;
+
+import java.util.Map;
+
+import org.neo4j.rest.graphdb.RequestResult;
+import org.neo4j.rest.graphdb.RestRequest;
+import org.neo4j.rest.graphdb.batch.RestOperations.RestOperation;
+
+/**
+ * Executes requests immediately after sending the pending writes of its {@link AutoBatch}, so reads always see them.
+ * Writes that may be deferred go through {@link #deferred()}. A request for a placeholder uri ({@code {batchId}})
+ * of a pending operation is resolved to the created entity once the batch was sent.
+ */
+public class AutoBatchingRestRequest implements RestRequest {
+    private final RestRequest restRequest;
+    private final AutoBatch batch;
+    private final RestOperation placeholder;
+
+    public AutoBatchingRestRequest(RestRequest restRequest, AutoBatch batch) {
+        this(restRequest, batch, null);
+    }
+
+    private AutoBatchingRestRequest(RestRequest restRequest, AutoBatch batch, RestOperation placeholder) {
+        this.restRequest = restRequest;
+        this.batch = batch;
+        this.placeholder = placeholder;
+    }
+
+    private RestRequest executing() {
+        batch.flush();
+        if (placeholder == null) return restRequest;
+        final String location = placeholder.getLocation();
+        if (location == null) throw new IllegalStateException("Batch operation " + placeholder.getBatchId() + " did not create an entity");
+        return restRequest.with(location);
+    }
+
+    /**
+     * Records writes into the batch, the results are placeholders, see {@link RequestResult#isBatchResult()}.
+     */
+    public RestRequest deferred() {
+        return batch.recorder(this);
+    }
+
+    public RestRequest getDelegate() {
+        return restRequest;
+    }
+
+    public AutoBatch getBatch() {
+        return batch;
+    }
+
+    @Override
+    public RequestResult get(String path) {
+        return executing().get(path);
+    }
+
+    @Override
+    public RequestResult get(String path, Object data) {
+        return executing().get(path, data);
+    }
+
+    @Override
+    public RequestResult delete(String path) {
+        return executing().delete(path);
+    }
+
+    @Override
+    public RequestResult post(String path, Object data) {
+        return executing().post(path, data);
+    }
+
+    @Override
+    public RequestResult put(String path, Object data) {
+        return executing().put(path, data);
+    }
+
+    @Override
+    public RequestResult getStreaming(String path, Object data) {
+        return executing().getStreaming(path, data);
+    }
+
+    @Override
+    public RequestResult postStreaming(String path, Object data) {
+        return executing().postStreaming(path, data);
+    }
+
+    @Override
+    public RequestResult getIfNoneMatch(String path, String entityTag) {
+        return executing().getIfNoneMatch(path, entityTag);
+    }
+
+    @Override
+    public RestRequest with(String uri) {
+        return new AutoBatchingRestRequest(restRequest.with(uri), batch, batch.pendingOperation(uri));
+    }
+
+    @Override
+    public String getUri() {
+        if (placeholder != null && placeholder.getLocation() != null) return placeholder.getLocation();
+        return restRequest.getUri();
+    }
+
+    @Override
+    public Map<?, ?> toMap(RequestResult requestResult) {
+        return restRequest.toMap(requestResult);
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.batch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.neo4j.rest.graphdb.batch.RestOperations.RestOperation;
+import org.neo4j.rest.graphdb.batch.RestOperations.RestOperation.Methods;
+
+/**
+ * Splits the pending recorded operations into chunks of at most {@code chunkSize} operations and orders them in waves.
+ * A chunk is placed in a later wave than every chunk it depends on, i.e. whose {@code {batchId}} placeholders
+ * it references, or that updates or deletes an entity it also touches (and vice versa). Entities are touched
+ * through the uri of an operation and through uris in its body, e.g. the end node of a new relationship.
+ * Chunks of the same wave are independent of each other and can be sent in parallel.
+ */
+public class BatchPlan {
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{(\\d+)\\}");
+
+    private final List<List<List<RestOperation>>> waves = new ArrayList<List<List<RestOperation>>>();
+
+    public BatchPlan(RestOperations operations, int chunkSize, String baseUri) {
+        final List<List<RestOperation>> chunks = split(operations.getPendingOperations(), chunkSize);
+        final Map<Long, Integer> chunkOfOperation = new HashMap<Long, Integer>();
+        for (int i = 0; i < chunks.size(); i++) {
+            for (RestOperation operation : chunks.get(i)) {
+                chunkOfOperation.put(operation.getBatchId(), i);
+            }
+        }
+        final int[] levels = new int[chunks.size()];
+        final Map<String, Integer> touchedAtLevel = new HashMap<String, Integer>();
+        final Map<String, Integer> modifiedAtLevel = new HashMap<String, Integer>();
+        for (int i = 0; i < chunks.size(); i++) {
+            int level = 0;
+            final Set<String> touched = new HashSet<String>();
+            final Set<String> modified = new HashSet<String>();
+            for (RestOperation operation : chunks.get(i)) {
+                for (Long reference : references(operation)) {
+                    final Integer chunk = chunkOfOperation.get(reference);
+                    if (chunk != null && chunk < i) level = Math.max(level, levels[chunk] + 1);
+                }
+                final String entity = entityKey(operation, baseUri);
+                touched.add(entity);
+                if (operation.getMethod() == Methods.PUT || operation.getMethod() == Methods.DELETE) modified.add(entity);
+                collectEntityKeys(operation.getData(), baseUri, touched);
+            }
+            for (String entity : touched) {
+                level = Math.max(level, after(modifiedAtLevel.get(entity)));
+            }
+            for (String entity : modified) {
+                level = Math.max(level, after(touchedAtLevel.get(entity)));
+            }
+            levels[i] = level;
+            raise(touchedAtLevel, touched, level);
+            raise(modifiedAtLevel, modified, level);
+            while (waves.size() <= level) {
+                waves.add(new ArrayList<List<RestOperation>>());
+            }
+            waves.get(level).add(chunks.get(i));
+        }
+    }
+
+    public List<List<List<RestOperation>>> getWaves() {
+        return waves;
+    }
+
+    private static int after(Integer level) {
+        return level == null ? 0 : level + 1;
+    }
+
+    private static void raise(Map<String, Integer> levels, Set<String> entities, int level) {
+        for (String entity : entities) {
+            final Integer current = levels.get(entity);
+            if (current == null || current < level) levels.put(entity, level);
+        }
+    }
+
+    private static List<List<RestOperation>> split(Collection<RestOperation> operations, int chunkSize) {
+        final List<List<RestOperation>> chunks = new ArrayList<List<RestOperation>>();
+        List<RestOperation> chunk = null;
+        for (RestOperation operation : operations) {
+            if (chunk == null || chunk.size() == chunkSize) {
+                chunk = new ArrayList<RestOperation>(chunkSize);
+                chunks.add(chunk);
+            }
+            chunk.add(operation);
+        }
+        return chunks;
+    }
+
+    /**
+     * The node, relationship or index an operation works on, relative to the base uri, e.g. {@code node/5} or {@code {3}}.
+     */
+    static String entityKey(RestOperation operation, String baseUri) {
+        return entityKey(operation.isSameUri(baseUri) ? operation.getUri() : operation.getBaseUri() + "/" + operation.getUri(), baseUri);
+    }
+
+    private static String entityKey(String uri, String baseUri) {
+        if (uri.startsWith(baseUri)) uri = uri.substring(baseUri.length());
+        final int query = uri.indexOf('?');
+        if (query != -1) uri = uri.substring(0, query);
+        final String[] segments = uri.replaceAll("^/+", "").split("/");
+        if (RestOperations.isPlaceholder(segments[0])) return segments[0];
+        final int length = segments[0].equals("index") ? 3 : 2;
+        final StringBuilder key = new StringBuilder();
+        for (int i = 0; i < Math.min(length, segments.length); i++) {
+            if (i > 0) key.append('/');
+            key.append(segments[i]);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Adds the keys of the nodes and relationships whose uris appear in the body.
+     */
+    static void collectEntityKeys(Object value, String baseUri, Set<String> keys) {
+        if (value instanceof String) {
+            final String uri = (String) value;
+            if (uri.startsWith(baseUri + "/node/") || uri.startsWith(baseUri + "/relationship/")) keys.add(entityKey(uri, baseUri));
+        } else if (value instanceof Map) {
+            for (Object element : ((Map<?, ?>) value).values()) {
+                collectEntityKeys(element, baseUri, keys);
+            }
+        } else if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                collectEntityKeys(element, baseUri, keys);
+            }
+        }
+    }
+
+    static Set<Long> references(RestOperation operation) {
+        final Set<Long> references = new HashSet<Long>();
+        collectReferences(operation.getBaseUri(), references);
+        collectReferences(operation.getUri(), references);
+        collectReferences(operation.getData(), references);
+        return references;
+    }
+
+    private static void collectReferences(Object value, Set<Long> references) {
+        if (value instanceof String) {
+            final Matcher matcher = PLACEHOLDER.matcher((String) value);
+            while (matcher.find()) {
+                references.add(Long.valueOf(matcher.group(1)));
+            }
+        } else if (value instanceof Map) {
+            for (Object element : ((Map<?, ?>) value).values()) {
+                collectReferences(element, references);
+            }
+        } else if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                collectReferences(element, references);
+            }
+        }
+    }
+
+    /**
+     * Replaces placeholders of operations that were already executed (in an earlier chunk) with the created locations.
+     */
+    public static Object resolvePlaceholders(Object value, RestOperations operations) {
+        if (value instanceof String) {
+            final String string = (String) value;
+            if (string.indexOf('{') == -1) return string;
+            final Matcher matcher = PLACEHOLDER.matcher(string);
+            final StringBuffer result = new StringBuffer();
+            while (matcher.find()) {
+                final RestOperation referenced = operations.getOperation(Long.valueOf(matcher.group(1)));
+                final String location = referenced != null ? referenced.getLocation() : null;
+                matcher.appendReplacement(result, Matcher.quoteReplacement(location != null ? location : matcher.group()));
+            }
+            matcher.appendTail(result);
+            return result.toString();
+        }
+        if (value instanceof Map) {
+            final Map<Object, Object> result = new LinkedHashMap<Object, Object>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                result.put(entry.getKey(), resolvePlaceholders(entry.getValue(), operations));
+            }
+            return result;
+        }
+        if (value instanceof Collection) {
+            final List<Object> result = new ArrayList<Object>();
+            for (Object element : (Collection<?>) value) {
+                result.add(resolvePlaceholders(element, operations));
+            }
+            return result;
+        }
+        return value;
+    }
+}
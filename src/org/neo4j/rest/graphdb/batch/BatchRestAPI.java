@@ -24,7 +24,7 @@ import java.util.Map;
 
 import org.neo4j.graphdb.PropertyContainer;
 import org.neo4j.graphdb.Relationship;
-import org.neo4j.graphdb.index.IndexHits;
+import org.neo4j.helpers.collection.ClosableIterable;
 import org.neo4j.helpers.collection.MapUtil;
 import org.neo4j.index.lucene.ValueContext;
 import org.neo4j.rest.graphdb.ExecutingRestRequest;
@@ -40,6 +40,7 @@ import org.neo4j.rest.graphdb.entity.RestNode;
 import org.neo4j.rest.graphdb.entity.RestRelationship;
 import org.neo4j.rest.graphdb.index.IndexInfo;
 import org.neo4j.rest.graphdb.index.RestIndex;
+import org.neo4j.rest.graphdb.index.RestIndexHits;
 import org.neo4j.rest.graphdb.index.SimpleIndexHits;
 
 public class BatchRestAPI extends RestAPI {
@@ -53,8 +54,12 @@ public class BatchRestAPI extends RestAPI {
     }
     
     public BatchRestAPI(String uri, ExecutingRestRequest executingRestRequest){
-        super(uri);
-        this.restRequest =  new RecordingRestRequest(executingRestRequest, new RestOperations());
+        this(uri, (RestRequest) executingRestRequest);
+    }
+
+    public BatchRestAPI(String uri, RestRequest restRequest){
+        super(restRequest);
+        this.restRequest =  new RecordingRestRequest(restRequest, new RestOperations());
     }
     
     @Override
@@ -100,7 +105,7 @@ public class BatchRestAPI extends RestAPI {
         return result;
     }
 
-    public <S extends PropertyContainer> IndexHits<S> queryIndex(String indexPath, Class<S> entityType) {
+    public <S extends PropertyContainer> RestIndexHits<S> queryIndex(String indexPath, Class<S> entityType) {
         RequestResult response = restRequest.get(indexPath);
         final long batchId = response.getBatchId();
         final SimpleIndexHits<S> result = new SimpleIndexHits<S>(batchId, entityType, this);
@@ -109,6 +114,16 @@ public class BatchRestAPI extends RestAPI {
     }    
    
 
+    @Override
+    public <S extends PropertyContainer> RestIndexHits<S> queryIndexStreaming(String indexPath, Class<S> entityType) {
+        throw new UnsupportedOperationException("Index hits can't be streamed in a batch");
+    }
+
+    @Override
+    public ClosableIterable<Relationship> streamRelationships(RestNode node, String path) {
+        throw new UnsupportedOperationException("Relationships can't be streamed in a batch");
+    }
+
     public  IndexInfo indexInfo(final String indexType) {
         return new BatchIndexInfo();
     }
@@ -133,17 +148,27 @@ public class BatchRestAPI extends RestAPI {
     
     @Override
     public <T> void removeFromIndex(RestIndex index, T entity) {       
-        throw new UnsupportedOperationException();
+        restRequest.delete(batchIndexEntryPath(index, entity, null, null));
     }
     
     @Override
     public <T> void removeFromIndex( RestIndex index, T entity, String key, Object value ) {
-        throw new UnsupportedOperationException();
+        restRequest.delete(batchIndexEntryPath(index, entity, key, value));
     }  
     
     @Override
     public <T> void removeFromIndex(RestIndex index, T entity, String key) {
-        throw new UnsupportedOperationException();
+        restRequest.delete(batchIndexEntryPath(index, entity, key, null));
+    }
+
+    /**
+     * The server substitutes placeholders with the full uri of the created entity, which doesn't fit into an index path.
+     */
+    private static String batchIndexEntryPath(RestIndex index, Object entity, String key, Object value) {
+        if (RestOperations.isPlaceholder(((RestEntity) entity).getUri())) {
+            throw new UnsupportedOperationException("Can't remove " + entity + " from index " + index.getIndexName() + " in the batch that creates it");
+        }
+        return indexEntryPath(index, entity, key, value);
     }
          
 
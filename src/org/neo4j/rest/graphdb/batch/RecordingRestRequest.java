@@ -86,6 +86,21 @@ public class RecordingRestRequest implements RestRequest {
         
     }
 
+    @Override
+    public RequestResult getStreaming(String path, Object data) {
+        return get(path, data);
+    }
+
+    @Override
+    public RequestResult postStreaming(String path, Object data) {
+        return post(path, data);
+    }
+
+    @Override
+    public RequestResult getIfNoneMatch(String path, String entityTag) {
+        return get(path);
+    }
+
     @Override
     public RestRequest with(String uri) {        
         return new RecordingRestRequest(this.restRequest.with(uri), this.operations);
@@ -134,8 +149,7 @@ public class RecordingRestRequest implements RestRequest {
 
     @Override
 	public Map<?, ?> toMap(RequestResult requestResult) {	
-	   final String json = entityString(requestResult);
-	    return JsonHelper.jsonToMap(json);	   
+	    return requestResult.toMap();
 	}
 	
 	public String entityString( RequestResult requestResult) {
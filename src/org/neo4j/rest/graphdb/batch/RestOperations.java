@@ -19,7 +19,9 @@
  */
 package org.neo4j.rest.graphdb.batch;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -64,6 +66,8 @@ public class RestOperations {
         private MediaType acceptHeader;
         private Object entity;
         private RestResultConverter resultConverter;
+        private String location;
+        private boolean executed;
 
        
 
@@ -123,9 +127,31 @@ public class RestOperations {
         public String getBaseUri() {
             return baseUri;
         }
+
+        /**
+         * The location of the entity created by this operation, known once the batch was executed.
+         */
+        public String getLocation() {
+            return location;
+        }
+
+        public void setLocation(String location) {
+            this.location = location;
+        }
         public boolean isSameUri(String baseUri) {
             return this.baseUri.equals(baseUri);
         }
+
+        /**
+         * Whether the batch request that contained this operation succeeded.
+         */
+        public boolean isExecuted() {
+            return executed;
+        }
+
+        public void setExecuted() {
+            this.executed = true;
+        }
     }
     
     public Map<Long,RestOperation> getRecordedRequests(){
@@ -142,4 +168,38 @@ public class RestOperations {
     public void addToRestOperation(long batchId, Object entity, final RestResultConverter resultConverter){
         this.operations.get(batchId).setEntity(entity, resultConverter);
     }
+
+    /**
+     * The operations that were not executed yet, all of them unless an earlier execution failed part way.
+     */
+    public List<RestOperation> getPendingOperations() {
+        final List<RestOperation> pending = new ArrayList<RestOperation>(operations.size());
+        for (RestOperation operation : operations.values()) {
+            if (!operation.isExecuted()) pending.add(operation);
+        }
+        return pending;
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    /**
+     * Forgets the recorded operations, batch ids keep increasing so placeholders stay unique.
+     */
+    public void clear() {
+        operations.clear();
+    }
+
+    public static boolean isPlaceholder(String uri) {
+        return uri != null && uri.startsWith("{") && uri.endsWith("}");
+    }
+
+    public static long placeholderId(String uri) {
+        return Long.parseLong(uri.substring(1, uri.length() - 1));
+    }
 }
@@ -19,14 +19,19 @@
  */
 package org.neo4j.rest.graphdb.converter;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import org.neo4j.graphdb.Relationship;
+import org.neo4j.helpers.collection.ClosableIterable;
+import org.neo4j.helpers.collection.ClosableIterator;
 import org.neo4j.helpers.collection.IterableWrapper;
 import org.neo4j.rest.graphdb.RequestResult;
 import org.neo4j.rest.graphdb.RestAPI;
 import org.neo4j.rest.graphdb.entity.RestRelationship;
+import org.neo4j.rest.graphdb.util.StreamingIterable;
 
 /**
 * @author mh
@@ -41,6 +46,9 @@ public class RelationshipIterableConverter implements RestResultConverter {
 
     @Override
     public Object convertFromRepresentation(RequestResult requestResult) {
+        if (requestResult.isStreaming()) {
+            return readRelationships(requestResult.streamArray());
+        }
         return new IterableWrapper<Relationship, Object>((Collection<Object>) requestResult.toEntity()) {
             @Override
             protected Relationship underlyingObjectToObject(Object data) {
@@ -48,4 +56,28 @@ public class RelationshipIterableConverter implements RestResultConverter {
             }
         };
     }
+
+    /**
+     * The relationships are only created while they are iterated, the result can be iterated once.
+     */
+    public ClosableIterable<Relationship> stream(RequestResult requestResult) {
+        return new StreamingIterable<Relationship>(requestResult.streamArray()) {
+            @Override
+            protected Relationship underlyingObjectToObject(Object data) {
+                return new RestRelationship((Map<?, ?>) data, restAPI);
+            }
+        };
+    }
+
+    private List<Relationship> readRelationships(ClosableIterator<Object> representations) {
+        final List<Relationship> relationships = new ArrayList<Relationship>();
+        try {
+            while (representations.hasNext()) {
+                relationships.add(new RestRelationship((Map<?, ?>) representations.next(), restAPI));
+            }
+        } finally {
+            representations.close();
+        }
+        return relationships;
+    }
 }
@@ -19,12 +19,15 @@
  */
 package org.neo4j.rest.graphdb.converter;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import org.neo4j.graphdb.PropertyContainer;
-import org.neo4j.graphdb.index.IndexHits;
+import org.neo4j.helpers.collection.ClosableIterator;
 import org.neo4j.rest.graphdb.RequestResult;
 import org.neo4j.rest.graphdb.RestAPI;
+import org.neo4j.rest.graphdb.index.RestIndexHits;
 import org.neo4j.rest.graphdb.index.SimpleIndexHits;
 
 /**
@@ -40,9 +43,20 @@ public class RestIndexHitsConverter<S extends PropertyContainer> implements Rest
         this.entityType = entityType;
     }
 
-    public IndexHits<S> convertFromRepresentation(RequestResult response) {
-        Collection hits = (Collection) response.toEntity();
+    public RestIndexHits<S> convertFromRepresentation(RequestResult response) {
+        Collection hits = response.isStreaming() ? readHits(response.streamArray()) : (Collection) response.toEntity();
         return new SimpleIndexHits<S>(hits, hits.size(), entityType, restAPI);
     }
 
+    private List<Object> readHits(ClosableIterator<Object> representations) {
+        final List<Object> hits = new ArrayList<Object>();
+        try {
+            while (representations.hasNext()) {
+                hits.add(representations.next());
+            }
+        } finally {
+            representations.close();
+        }
+        return hits;
+    }
 }
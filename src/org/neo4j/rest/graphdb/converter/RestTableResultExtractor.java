@@ -20,12 +20,12 @@
 package org.neo4j.rest.graphdb.converter;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.neo4j.rest.graphdb.RequestResult;
 import org.neo4j.rest.graphdb.util.JsonHelper;
+import org.neo4j.rest.graphdb.util.TableRow;
 
 public class RestTableResultExtractor implements RestResultConverter{
 
@@ -38,10 +38,10 @@ public class RestTableResultExtractor implements RestResultConverter{
 
     public List<Map<String, Object>> extract(Map<?, ?> restResult) {
         List<String> columns = (List<String>) restResult.get("columns");
-        return extractData(restResult, columns);
+        return extractData(restResult, new TableRow.Columns(columns));
     }
 
-    private List<Map<String, Object>> extractData(Map<?, ?> restResult, List<String> columns) {
+    private List<Map<String, Object>> extractData(Map<?, ?> restResult, TableRow.Columns columns) {
         List<List<?>> rows = (List<List<?>>) restResult.get("data");
         List<Map<String, Object>> result = new ArrayList<Map<String, Object>>(rows.size());
         for (List<?> row : rows) {
@@ -50,14 +50,23 @@ public class RestTableResultExtractor implements RestResultConverter{
         return result;
     }
 
-    private Map<String, Object> mapRow(List<String> columns, List<?> row) {
+    public TableRow mapRow(TableRow.Columns columns, List<?> row) {
         int columnCount = columns.size();
-        Map<String, Object> newRow = new HashMap<String, Object>(columnCount);
+        Object[] values = new Object[columnCount];
         for (int i = 0; i < columnCount; i++) {
-            final Object value = row.get(i);
-            newRow.put(columns.get(i), restEntityExtractor.convertFromRepresentation(value));
+            values[i] = row.get(i);
         }
-        return newRow;
+        return mapRow(columns, values);
+    }
+
+    /**
+     * Converts the representations in place, the row takes ownership of the array.
+     */
+    public TableRow mapRow(TableRow.Columns columns, Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = restEntityExtractor.convertFromRepresentation(values[i]);
+        }
+        return new TableRow(columns, values);
     }
 
     @Override
@@ -70,8 +79,7 @@ public class RestTableResultExtractor implements RestResultConverter{
     }
 
     public Map<?, ?> toMap(RequestResult requestResult) {
-	   final String json = entityString(requestResult);
-	    return JsonHelper.jsonToMap(json);
+	    return requestResult.toMap();
 	}
 
     public String entityString( RequestResult requestResult) {
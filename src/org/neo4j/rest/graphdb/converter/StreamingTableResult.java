@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.converter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.neo4j.helpers.collection.ClosableIterable;
+import org.neo4j.helpers.collection.PrefetchingIterator;
+import org.neo4j.rest.graphdb.RestResultException;
+import org.neo4j.rest.graphdb.util.JsonHelper;
+import org.neo4j.rest.graphdb.util.TableRow;
+
+/**
+ * Tabular (cypher) result that decodes the {@code data} rows from the response only while it is iterated, the cells
+ * of a row are read straight into its values. The {@code columns} are read up front, if the server sends {@code data}
+ * before {@code columns} the rows have to be buffered. Can be iterated once, the response is closed when the rows are exhausted or on {@link #close()}.
+ */
+public class StreamingTableResult implements ClosableIterable<Map<String, Object>> {
+    private final JsonParser parser;
+    private final RestTableResultExtractor extractor;
+    private TableRow.Columns columns;
+    private Iterator<?> bufferedRows;
+    private boolean iterated;
+    private boolean closed;
+
+    public StreamingTableResult(JsonParser parser, RestTableResultExtractor extractor) {
+        this.parser = parser;
+        this.extractor = extractor;
+        try {
+            readHeader();
+        } catch (IOException e) {
+            close();
+            throw new RuntimeException(e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readHeader() throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) throw new IllegalStateException("Unexpected cypher result, expected a JSON object");
+        final Map<String, Object> other = new HashMap<String, Object>();
+        List<?> data = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+            if (field.equals("columns")) {
+                columns = new TableRow.Columns((List<String>) JsonHelper.readValue(parser));
+            } else if (field.equals("data") && columns != null && token == JsonToken.START_ARRAY) {
+                return;
+            } else if (field.equals("data")) {
+                data = (List<?>) JsonHelper.readValue(parser);
+            } else {
+                other.put(field, JsonHelper.readValue(parser));
+            }
+        }
+        close();
+        if (RestResultException.isExceptionResult(other)) throw new RestResultException(other);
+        if (columns == null) throw new IllegalStateException("Unexpected cypher result, no columns in " + other.keySet());
+        bufferedRows = data != null ? data.iterator() : Collections.emptyList().iterator();
+    }
+
+    public List<String> getColumns() {
+        return columns.names();
+    }
+
+    @Override
+    public Iterator<Map<String, Object>> iterator() {
+        if (iterated) throw new IllegalStateException("Streaming result can only be iterated once");
+        iterated = true;
+        return new PrefetchingIterator<Map<String, Object>>() {
+            @Override
+            protected Map<String, Object> fetchNextOrNull() {
+                if (bufferedRows != null) {
+                    return bufferedRows.hasNext() ? extractor.mapRow(columns, (List<?>) bufferedRows.next()) : null;
+                }
+                final Object[] row = nextRow();
+                return row == null ? null : extractor.mapRow(columns, row);
+            }
+        };
+    }
+
+    private Object[] nextRow() {
+        if (closed) return null;
+        try {
+            final JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                close();
+                return null;
+            }
+            if (token != JsonToken.START_ARRAY) throw new IllegalStateException("Unexpected cypher result, expected a row but got " + token);
+            final Object[] values = new Object[columns.size()];
+            int column = 0;
+            JsonToken cell;
+            while ((cell = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (cell == null) throw new IllegalStateException("Unexpected end of cypher result");
+                if (column < values.length) {
+                    values[column] = JsonHelper.readValue(parser);
+                } else {
+                    parser.skipChildren();
+                }
+                column++;
+            }
+            return values;
+        } catch (IOException e) {
+            close();
+            throw new RuntimeException(e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            parser.close();
+        } catch (IOException e) {
+            // ignore, nothing left to read
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.helpers.collection.MapUtil;
+import org.neo4j.helpers.collection.PrefetchingIterator;
+import org.neo4j.rest.graphdb.RestAPI;
+import org.neo4j.rest.graphdb.util.QueryResult;
+
+/**
+ * Iterates the relationships of a node page by page. While a page is consumed the next one is already requested
+ * through the asynchronous client of the {@link RestAPI}, so at most two pages are held in memory.
+ * The statement has to take the parameters {@code node} and {@code skip} and return the relationships as {@code r}.
+ */
+public class PagedRelationshipIterable implements Iterable<Relationship> {
+    private final RestAPI restApi;
+    private final long nodeId;
+    private final String statement;
+    private final int pageSize;
+
+    public PagedRelationshipIterable(RestAPI restApi, long nodeId, String statement, int pageSize) {
+        this.restApi = restApi;
+        this.nodeId = nodeId;
+        this.statement = statement;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public Iterator<Relationship> iterator() {
+        return new PageIterator();
+    }
+
+    private Future<QueryResult<Map<String, Object>>> requestPage(int skip) {
+        return restApi.queryAsync(statement, MapUtil.map("node", nodeId, "skip", skip));
+    }
+
+    private static List<Relationship> await(Future<QueryResult<Map<String, Object>>> page) {
+        final QueryResult<Map<String, Object>> result;
+        try {
+            result = page.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+        final List<Relationship> relationships = new ArrayList<Relationship>();
+        for (Map<String, Object> row : result) {
+            relationships.add((Relationship) row.get("r"));
+        }
+        return relationships;
+    }
+
+    private class PageIterator extends PrefetchingIterator<Relationship> {
+        private Iterator<Relationship> page = Collections.<Relationship>emptyList().iterator();
+        private Future<QueryResult<Map<String, Object>>> nextPage = requestPage(0);
+        private int read;
+
+        @Override
+        protected Relationship fetchNextOrNull() {
+            while (!page.hasNext()) {
+                if (nextPage == null) return null;
+                final List<Relationship> relationships = await(nextPage);
+                read += relationships.size();
+                nextPage = relationships.size() < pageSize ? null : requestPage(read);
+                restApi.prefetchNeighbours(nodeId, relationships);
+                page = relationships.iterator();
+            }
+            return page.next();
+        }
+    }
+}
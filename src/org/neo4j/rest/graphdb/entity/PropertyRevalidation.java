@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.entity;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.core.Response.Status;
+
+import org.neo4j.rest.graphdb.RequestResult;
+
+/**
+ * Refreshes the cached properties of an entity by first asking the server with a cheap validator whether they
+ * changed, the full property map is only downloaded if they did. Counts how many downloads were saved that way.
+ */
+public abstract class PropertyRevalidation {
+
+    /**
+     * Decides per entity how long its properties are used before they are revalidated.
+     */
+    public interface TimeToLivePolicy {
+        /**
+         * @return the time to live in milliseconds, or a negative value to use the default refetch time
+         */
+        long getTimeToLive(RestEntity entity);
+    }
+
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong downloads = new AtomicLong();
+    private volatile TimeToLivePolicy timeToLivePolicy;
+
+    /**
+     * Uses the ETag of the properties resource and a conditional GET, for servers or proxies that send ETags.
+     * Without an ETag every refresh is a plain download.
+     */
+    public static PropertyRevalidation byEntityTag() {
+        return new EntityTagRevalidation();
+    }
+
+    /**
+     * Compares the value of the given property, which the application changes on every update, with the
+     * one seen last time and downloads the full map only if it differs.
+     */
+    public static PropertyRevalidation byVersionProperty(String key) {
+        return new VersionPropertyRevalidation(key);
+    }
+
+    public static TimeToLivePolicy fixedTimeToLive(final long timeToLiveMillis) {
+        return new TimeToLivePolicy() {
+            @Override
+            public long getTimeToLive(RestEntity entity) {
+                return timeToLiveMillis;
+            }
+        };
+    }
+
+    public PropertyRevalidation withTimeToLive(TimeToLivePolicy timeToLivePolicy) {
+        this.timeToLivePolicy = timeToLivePolicy;
+        return this;
+    }
+
+    public long getTimeToLive(RestEntity entity, long defaultTimeToLive) {
+        final TimeToLivePolicy policy = timeToLivePolicy;
+        if (policy == null) return defaultTimeToLive;
+        final long timeToLive = policy.getTimeToLive(entity);
+        return timeToLive < 0 ? defaultTimeToLive : timeToLive;
+    }
+
+    /**
+     * @return the current properties of the entity, the already loaded map if it is still valid
+     */
+    public Map<String, Object> refresh(RestEntity entity) {
+        final Map<String, Object> cached = entity.getLoadedPropertyData();
+        final String validator = entity.getPropertyValidator(this);
+        if (cached == null || validator == null) {
+            downloads.incrementAndGet();
+            return download(entity);
+        }
+        revalidations.incrementAndGet();
+        final Map<String, Object> result = revalidate(entity, cached, validator);
+        if (result == cached) {
+            unchanged.incrementAndGet();
+        } else {
+            downloads.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Downloads the properties and records their validator on the entity.
+     */
+    abstract Map<String, Object> download(RestEntity entity);
+
+    /**
+     * @return the cached map if the validator still matches, otherwise the downloaded properties
+     */
+    abstract Map<String, Object> revalidate(RestEntity entity, Map<String, Object> cached, String validator);
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> properties(RequestResult response) {
+        if (response.statusIs(Status.OK)) return (Map<String, Object>) response.toMap();
+        return Collections.emptyMap();
+    }
+
+    public long getRevalidationCount() {
+        return revalidations.get();
+    }
+
+    /**
+     * Number of revalidations that found the properties unchanged and so saved a download.
+     */
+    public long getSavedRefetchCount() {
+        return unchanged.get();
+    }
+
+    public long getDownloadCount() {
+        return downloads.get();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{revalidations=" + revalidations + ", saved=" + unchanged + ", downloads=" + downloads + "}";
+    }
+
+    private static class EntityTagRevalidation extends PropertyRevalidation {
+        @Override
+        Map<String, Object> download(RestEntity entity) {
+            return update(entity, entity.getRestRequest().get("properties"));
+        }
+
+        @Override
+        Map<String, Object> revalidate(RestEntity entity, Map<String, Object> cached, String validator) {
+            final RequestResult response = entity.getRestRequest().getIfNoneMatch("properties", validator);
+            if (response.statusIs(Status.NOT_MODIFIED)) return cached;
+            return update(entity, response);
+        }
+
+        private Map<String, Object> update(RestEntity entity, RequestResult response) {
+            final Map<String, Object> properties = properties(response);
+            entity.setPropertyValidator(this, response.getEntityTag());
+            return properties;
+        }
+    }
+
+    private static class VersionPropertyRevalidation extends PropertyRevalidation {
+        private final String key;
+
+        VersionPropertyRevalidation(String key) {
+            this.key = key;
+        }
+
+        @Override
+        Map<String, Object> download(RestEntity entity) {
+            final Map<String, Object> properties = properties(entity.getRestRequest().get("properties"));
+            final Object version = properties.get(key);
+            entity.setPropertyValidator(this, version == null ? null : version.toString());
+            return properties;
+        }
+
+        @Override
+        Map<String, Object> revalidate(RestEntity entity, Map<String, Object> cached, String validator) {
+            final RequestResult response = entity.getRestRequest().get("properties/" + key);
+            if (response.statusIs(Status.OK) && validator.equals(String.valueOf(response.toEntity()))) return cached;
+            return download(entity);
+        }
+    }
+}
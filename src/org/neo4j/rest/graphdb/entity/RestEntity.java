@@ -22,6 +22,8 @@ package org.neo4j.rest.graphdb.entity;
 
 import java.net.URI;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.neo4j.graphdb.NotFoundException;
@@ -32,38 +34,71 @@ import org.neo4j.rest.graphdb.RestAPI;
 import org.neo4j.rest.graphdb.RestGraphDatabase;
 import org.neo4j.rest.graphdb.RestRequest;
 import org.neo4j.rest.graphdb.UpdatableRestResult;
+import org.neo4j.rest.graphdb.batch.RestOperations;
 import org.neo4j.rest.graphdb.util.ArrayConverter;
 
+/**
+ * Keeps only the id of the entity, its urls are derived from the base uri of the {@link RestAPI} when needed.
+ * Uris that don't follow that scheme (e.g. batch placeholders) are kept as they are.
+ */
 public class RestEntity implements PropertyContainer, UpdatableRestResult<RestEntity> {
-    private Map<?, ?> structuralData;
+    private long id;
+    // volatile and assigned last in updateFrom, an entity updated by a timed batch flush is seen completely
+    private volatile String uri;
+    private boolean structureLoaded;
     private Map<String, Object> propertyData;
+    private Map<String, Object> pendingProperties;
     private long lastTimeFetchedPropertyData;
+    private String propertyValidator;
+    private PropertyRevalidation propertyValidatorSource;
     protected RestAPI restApi;    
-   
-   
-	protected RestRequest restRequest;
-    private final ArrayConverter arrayConverter=new ArrayConverter();
+    private static final ArrayConverter arrayConverter=new ArrayConverter();
 
     public RestEntity( URI uri, RestAPI restApi ) {
         this( uri.toString(), restApi );
     }    
 
     public RestEntity( String uri, RestAPI restApi ) {     
-        this.restRequest = restApi.getRestRequest().with( uri );        
         this.restApi = restApi;       
+        setUri( uri );
     }      
 
     public RestEntity( Map<?, ?> data, RestAPI restApi ) {
-        this.structuralData = data;
         this.restApi = restApi;
         this.propertyData = (Map<String, Object>) data.get( "data" );
         this.lastTimeFetchedPropertyData = System.currentTimeMillis();
-        String uri = (String) data.get( "self" );
-        this.restRequest = restApi.getRestRequest().with( uri );
+        setUri( (String) data.get( "self" ) );
+        readStructure( data );
+    }
+
+    /**
+     * The path segment of this entity type below the base uri, null if the uri can't be derived.
+     */
+    protected String getTypePath() {
+        return null;
+    }
+
+    private void setUri( String uri ) {
+        final String prefix = restApi.getRestRequest().getUri() + "/" + getTypePath() + "/";
+        if ( getTypePath() != null && uri.startsWith( prefix ) && isNumber( uri, prefix.length() ) ) {
+            this.id = Long.parseLong( uri.substring( prefix.length() ) );
+            this.uri = null;
+        } else {
+            this.uri = uri;
+        }
+    }
+
+    private static boolean isNumber( String value, int start ) {
+        if ( start == value.length() ) return false;
+        for ( int i = start; i < value.length(); i++ ) {
+            if ( !Character.isDigit( value.charAt( i ) ) ) return false;
+        }
+        return true;
     }
 
     public String getUri() {       
-        return this.restRequest.getUri();
+        if ( this.uri != null ) return this.uri;
+        return restApi.getRestRequest().getUri() + "/" + getTypePath() + "/" + this.id;
     }
     
     public void updateFrom(RestEntity updateEntity, RestAPI restApi){  
@@ -71,29 +106,72 @@ public class RestEntity implements PropertyContainer, UpdatableRestResult<RestEn
             this.lastTimeFetchedPropertyData = 0;
         }
         this.restApi = restApi;
-        this.restRequest = restApi.getRestRequest().with(updateEntity.getUri());
-        this.structuralData = updateEntity.getStructuralData();
+        readStructure( updateEntity.getStructuralData() );
         this.propertyData = updateEntity.getPropertyData();    
         this.lastTimeFetchedPropertyData = System.currentTimeMillis();
+        setUri( updateEntity.getUri() );
+        restApi.updateCachedSize( this );
     }    
 
+    /**
+     * Takes the parts of the entity representation that are kept, subclasses have to call this implementation.
+     */
+    protected void readStructure( Map<?, ?> data ) {
+        this.structureLoaded = true;
+    }
+
+    /**
+     * Adds the derived urls and the kept parts of the representation to the given map.
+     */
+    protected void describe( Map<String, Object> structure ) {
+        final String uri = getUri();
+        structure.put( "self", uri );
+        structure.put( "properties", uri + "/properties" );
+        structure.put( "property", uri + "/properties/{key}" );
+    }
+
+    /**
+     * The entity representation as sent by the server, loaded on first access and rebuilt from the kept parts.
+     */
     Map<?, ?> getStructuralData() {
-        if ( this.structuralData == null ) {
-            this.structuralData = restRequest.get( "" ) .toMap();
+        if ( !this.structureLoaded ) {
+            readStructure( getRestRequest().get( "" ).toMap() );
         }
-        return this.structuralData;
+        final Map<String, Object> structure = new HashMap<String, Object>();
+        describe( structure );
+        return structure;
     }    
    
     Map<String, Object> getPropertyData() {       
+        if (hasToUpdateProperties() && hasPendingProperties()) {
+            restApi.flushProperties(this);
+        }
         if (hasToUpdateProperties()) {            
         	this.propertyData = restApi.getPropertiesFromEntity(this);
             this.lastTimeFetchedPropertyData = System.currentTimeMillis();
+            restApi.updateCachedSize( this );
         }
         return this.propertyData;
     }
 
+    Map<String, Object> getLoadedPropertyData() {
+        return this.propertyData;
+    }
+
+    /**
+     * The validator of the loaded properties, if it was recorded by the given revalidation.
+     */
+    String getPropertyValidator( PropertyRevalidation source ) {
+        return this.propertyValidatorSource == source ? this.propertyValidator : null;
+    }
+
+    void setPropertyValidator( PropertyRevalidation source, String propertyValidator ) {
+        this.propertyValidatorSource = source;
+        this.propertyValidator = propertyValidator;
+    }
+
     private boolean hasToUpdateProperties() {
-        return this.propertyData == null || timeElapsed( this.lastTimeFetchedPropertyData, restApi.getPropertyRefetchTimeInMillis() );
+        return this.propertyData == null || timeElapsed( this.lastTimeFetchedPropertyData, restApi.getPropertyTimeToLive( this ) );
     }
 
     private boolean timeElapsed( long since, long isItGreaterThanThis ) {       
@@ -149,8 +227,9 @@ public class RestEntity implements PropertyContainer, UpdatableRestResult<RestEn
     }
 
     public Object removeProperty( String key ) {
+        restApi.flushProperties( this );
         Object value = getProperty( key, null );
-        restRequest.delete("properties/" + key);
+        getRestRequest().delete("properties/" + key);
         invalidatePropertyData();
         return value;
     }
@@ -161,6 +240,41 @@ public class RestEntity implements PropertyContainer, UpdatableRestResult<RestEn
 
     public void invalidatePropertyData() {
         this.propertyData = null;
+        restApi.updateCachedSize( this );
+    }
+
+    /**
+     * Records the change to be written later and applies it to the loaded properties right away.
+     */
+    public void bufferProperty( String key, Object value ) {
+        synchronized ( this ) {
+            if ( this.pendingProperties == null ) {
+                this.pendingProperties = new LinkedHashMap<String, Object>();
+            }
+            this.pendingProperties.put( key, value );
+            if ( this.propertyData == null ) return;
+            if ( this.propertyData.isEmpty() ) this.propertyData = new LinkedHashMap<String, Object>();
+            this.propertyData.put( key, value );
+        }
+        restApi.updateCachedSize( this );
+    }
+
+    public synchronized boolean hasPendingProperties() {
+        return this.pendingProperties != null;
+    }
+
+    /**
+     * @return the buffered changes, only they are written so concurrent changes to other keys are kept,
+     * or null if no change was buffered
+     */
+    public synchronized Map<String, Object> takePendingProperties() {
+        final Map<String, Object> pending = this.pendingProperties;
+        this.pendingProperties = null;
+        return pending;
+    }
+
+    public synchronized void discardPendingProperties() {
+        this.pendingProperties = null;
     }
 
     static long getEntityId( String uri ) {
@@ -168,22 +282,39 @@ public class RestEntity implements PropertyContainer, UpdatableRestResult<RestEn
     }
 
     public long getId() {        
-        return getEntityId( getUri() );
+        if ( this.uri == null ) return this.id;
+        if ( RestOperations.isPlaceholder( this.uri ) ) {
+            restApi.flushPendingWrites();
+            if ( this.uri == null ) return this.id;
+        }
+        return getEntityId( this.uri );
     }
 
     public void delete() {
         this.restApi.deleteEntity(this);
     }
 
+    /**
+     * Entities whose batch wasn't sent yet only equal themselves, asking for their id would send it. Their hash code
+     * changes once it was sent, so they shouldn't be kept in hash based collections across a flush.
+     */
     @Override
     public int hashCode() {
+        if ( hasPlaceholderUri() ) return System.identityHashCode( this );
         return (int) getId();
     }
 
     @Override
     public boolean equals( Object o ) {
-        if (o == null) return false;
-        return getClass().equals( o.getClass() ) && getId() == ( (RestEntity) o ).getId();
+        if (this == o) return true;
+        if (o == null || !getClass().equals( o.getClass() )) return false;
+        final RestEntity other = (RestEntity) o;
+        if ( hasPlaceholderUri() || other.hasPlaceholderUri() ) return false;
+        return getId() == other.getId();
+    }
+
+    private boolean hasPlaceholderUri() {
+        return this.uri != null && RestOperations.isPlaceholder( this.uri );
     }
 
        
@@ -192,7 +323,7 @@ public class RestEntity implements PropertyContainer, UpdatableRestResult<RestEn
     }
 
     public RestRequest getRestRequest() {
-        return restRequest;
+        return restApi.getRestRequest().with( getUri() );
     }
 
     @Override
@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.entity;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded identity map of the entities of one type, keyed by their id. Looking up an id that was seen before
+ * returns the same instance together with its already loaded data. The least recently used entries are
+ * evicted when either the number of entries or the estimated size of their data exceeds the limits.
+ */
+public class RestEntityCache<T extends RestEntity> {
+    private static final long ENTRY_OVERHEAD = 96;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<Long, CacheEntry<T>> entries = new LinkedHashMap<Long, CacheEntry<T>>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public RestEntityCache(int maxEntries, long maxBytes) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be positive but was " + maxEntries);
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return the cached entity or null, counts as hit or miss
+     */
+    public synchronized T get(long id) {
+        final CacheEntry<T> entry = entries.get(id);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.entity;
+    }
+
+    /**
+     * Checks for the id without counting a hit or miss.
+     */
+    public synchronized boolean contains(long id) {
+        return entries.containsKey(id);
+    }
+
+    public synchronized void put(long id, T entity) {
+        final CacheEntry<T> entry = new CacheEntry<T>(entity, estimateSize(entity));
+        final CacheEntry<T> old = entries.put(id, entry);
+        if (old != null) bytes -= old.size;
+        bytes += entry.size;
+        evict();
+    }
+
+    /**
+     * Caches the entity unless there already is one with the same id, which is returned instead.
+     */
+    public synchronized T putIfAbsent(long id, T entity) {
+        final CacheEntry<T> entry = entries.get(id);
+        if (entry != null) {
+            hits++;
+            return entry.entity;
+        }
+        misses++;
+        put(id, entity);
+        return entity;
+    }
+
+    /**
+     * Estimates the size of the entity again if it is the cached one, as its data grows once it is loaded.
+     */
+    public synchronized void resize(long id, T entity) {
+        final CacheEntry<T> entry = entries.get(id);
+        if (entry == null || entry.entity != entity) return;
+        final long size = estimateSize(entity);
+        bytes += size - entry.size;
+        entry.size = size;
+        evict();
+    }
+
+    public synchronized T remove(long id) {
+        final CacheEntry<T> entry = entries.remove(id);
+        if (entry == null) return null;
+        bytes -= entry.size;
+        return entry.entity;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    private void evict() {
+        final Iterator<CacheEntry<T>> it = entries.values().iterator();
+        while (it.hasNext() && (entries.size() > maxEntries || bytes > maxBytes)) {
+            bytes -= it.next().size;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getEstimatedBytes() {
+        return bytes;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RestEntityCache{entries=" + entries.size() + ", bytes=" + bytes + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "}";
+    }
+
+    static long estimateSize(RestEntity entity) {
+        return ENTRY_OVERHEAD + estimateSize(entity.getLoadedPropertyData());
+    }
+
+    private static long estimateSize(Object value) {
+        if (value == null) return 0;
+        if (value instanceof String) return 40 + 2 * ((String) value).length();
+        if (value instanceof Map) {
+            long size = 48;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += 32 + estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof Collection) {
+            long size = 40;
+            for (Object element : (Collection<?>) value) {
+                size += 8 + estimateSize(element);
+            }
+            return size;
+        }
+        if (value.getClass().isArray()) {
+            final int length = Array.getLength(value);
+            if (value.getClass().getComponentType().isPrimitive()) return 16 + 8L * length;
+            long size = 16;
+            for (int i = 0; i < length; i++) {
+                size += 8 + estimateSize(Array.get(value, i));
+            }
+            return size;
+        }
+        return 16;
+    }
+
+    private static class CacheEntry<T> {
+        private final T entity;
+        private long size;
+
+        CacheEntry(T entity, long size) {
+            this.entity = entity;
+            this.size = size;
+        }
+    }
+}
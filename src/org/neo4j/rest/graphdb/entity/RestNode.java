@@ -19,8 +19,6 @@
  */
 package org.neo4j.rest.graphdb.entity;
 
-import static java.util.Arrays.asList;
-
 import java.net.URI;
 import java.util.Map;
 
@@ -32,8 +30,7 @@ import org.neo4j.graphdb.ReturnableEvaluator;
 import org.neo4j.graphdb.StopEvaluator;
 import org.neo4j.graphdb.Traverser;
 import org.neo4j.graphdb.Traverser.Order;
-import org.neo4j.helpers.collection.CombiningIterable;
-import org.neo4j.helpers.collection.IterableWrapper;
+import org.neo4j.helpers.collection.ClosableIterable;
 import org.neo4j.helpers.collection.IteratorUtil;
 import org.neo4j.rest.graphdb.RestAPI;
 import org.neo4j.rest.graphdb.traversal.RestDirection;
@@ -50,37 +47,64 @@ public class RestNode extends RestEntity implements Node {
     public RestNode( Map<?, ?> data, RestAPI restApi ) {
         super( data, restApi );
     }    
+
+    @Override
+    protected String getTypePath() {
+        return "node";
+    }
+
+    @Override
+    protected void describe( Map<String, Object> structure ) {
+        super.describe( structure );
+        final String uri = getUri();
+        for ( RestDirection direction : RestDirection.values() ) {
+            structure.put( direction.longName + "_relationships", uri + "/" + relationshipsPath( direction ) );
+            structure.put( direction.longName + "_typed_relationships", uri + "/" + relationshipsPath( direction ) + "/{-list|&|types}" );
+        }
+        structure.put( "create_relationship", uri + "/relationships" );
+        structure.put( "traverse", uri + "/traverse/{returnType}" );
+    }
   
     public Relationship createRelationshipTo( Node toNode, RelationshipType type ) {
     	 return this.restApi.createRelationship(this,(RestNode)toNode,type,null);
     }
 
     public Iterable<Relationship> getRelationships() {
-        return restApi.wrapRelationships( restRequest.get( "relationships/all" ) );
+        return getRelationships( Direction.BOTH );
     }
 
     public Iterable<Relationship> getRelationships( RelationshipType... types ) {
-        String path = getStructuralData().get( "all_relationships" ) + "/";
-        int counter = 0;
-        for ( RelationshipType type : types ) {
-            if ( counter++ > 0 ) {
-                path += "&";
-            }
-            path += type.name();
-        }
-        return restApi.wrapRelationships( restRequest.get( path ) );
+        return getRelationships( Direction.BOTH, types );
     }
 
 
     public Iterable<Relationship> getRelationships( Direction direction ) {
-        return restApi.wrapRelationships( restRequest.get( "relationships/" + RestDirection.from( direction ).shortName ) );
+        return getRelationships( direction, new RelationshipType[0] );
     }
 
     public Iterable<Relationship> getRelationships( RelationshipType type,
                                                     Direction direction ) {
-        String relationshipsKey = RestDirection.from( direction ).longName + "_relationships";
-        Object relationship = getStructuralData().get( relationshipsKey );
-        return restApi.wrapRelationships( restRequest.get( relationship + "/" + type.name() ) );
+        return getRelationships( direction, type );
+    }
+
+    /**
+     * Relative to the node, so no representation has to be fetched for nodes only known by their uri.
+     */
+    private static String relationshipsPath( RestDirection direction ) {
+        return "relationships/" + direction.shortName;
+    }
+
+    /**
+     * All given types are requested at once, the server filters by the {@code &} separated list.
+     */
+    private static String relationshipsPath( RestDirection direction, RelationshipType... types ) {
+        if ( types.length == 0 ) return relationshipsPath( direction );
+        final StringBuilder path = new StringBuilder( relationshipsPath( direction ) ).append( '/' );
+        for ( int i = 0; i < types.length; i++ ) {
+            if ( i > 0 ) path.append( '&' );
+            path.append( types[i].name() );
+        }
+        return path.toString();
     }
 
     public Relationship getSingleRelationship( RelationshipType type,
@@ -89,19 +113,38 @@ public class RestNode extends RestEntity implements Node {
     }
 
     public boolean hasRelationship() {
-        return getRelationships().iterator().hasNext();
+        return hasRelationship( Direction.BOTH );
     }
 
     public boolean hasRelationship( RelationshipType... types ) {
-        return getRelationships( types ).iterator().hasNext();
+        return hasRelationship( Direction.BOTH, types );
     }
 
     public boolean hasRelationship( Direction direction ) {
-        return getRelationships( direction ).iterator().hasNext();
+        return hasRelationship( direction, new RelationshipType[0] );
     }
 
     public boolean hasRelationship( RelationshipType type, Direction direction ) {
-        return getRelationships( type, direction ).iterator().hasNext();
+        return hasRelationship( direction, type );
+    }
+
+    /**
+     * Number of relationships of the node, counted on the server without transferring them.
+     */
+    public long getDegree() {
+        return getDegree( Direction.BOTH );
+    }
+
+    public long getDegree( Direction direction ) {
+        return getDegree( direction, new RelationshipType[0] );
+    }
+
+    public long getDegree( RelationshipType type, Direction direction ) {
+        return getDegree( direction, type );
+    }
+
+    public long getDegree( Direction direction, RelationshipType... types ) {
+        return restApi.getDegree( this, direction, types );
     }
 
     public Traverser traverse( Order order, StopEvaluator stopEvaluator,
@@ -121,20 +164,26 @@ public class RestNode extends RestEntity implements Node {
     }
 
     @Override
-    public Iterable<Relationship> getRelationships(final Direction direction, RelationshipType... types) {
-        return new CombiningIterable<Relationship>(new IterableWrapper<Iterable<Relationship>, RelationshipType>(asList(types)) {
-            @Override
-            protected Iterable<Relationship> underlyingObjectToObject(RelationshipType relationshipType) {
-                return getRelationships(relationshipType,direction);
-            }
-        });
+    public Iterable<Relationship> getRelationships(Direction direction, RelationshipType... types) {
+        if ( restApi.getRelationshipPageSize() > 0 ) {
+            return restApi.getRelationshipsPaged( this, direction, restApi.getRelationshipPageSize(), types );
+        }
+        final Iterable<Relationship> relationships = restApi.wrapRelationships( getRestRequest().getStreaming( relationshipsPath( RestDirection.from( direction ), types ), null ) );
+        restApi.prefetchNeighbours( getId(), relationships );
+        return relationships;
+    }
+
+    /**
+     * Like {@link #getRelationships(Direction, RelationshipType...)}, but the relationships are decoded while they
+     * are iterated. Can be iterated once and has to be closed if it is not iterated to the end, otherwise the
+     * response and its connection stay in use.
+     */
+    public ClosableIterable<Relationship> streamRelationships( Direction direction, RelationshipType... types ) {
+        return restApi.streamRelationships( this, relationshipsPath( RestDirection.from( direction ), types ) );
     }
 
     @Override
     public boolean hasRelationship(Direction direction, RelationshipType... types) {
-        for (RelationshipType relationshipType : types) {
-            if (hasRelationship(relationshipType,direction)) return true;
-        }
-        return false;
+        return restApi.hasRelationship( this, direction, types );
     }
 }
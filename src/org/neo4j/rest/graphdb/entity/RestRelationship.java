@@ -31,6 +31,9 @@ import org.neo4j.rest.graphdb.RestAPI;
 
 
 public class RestRelationship extends RestEntity implements Relationship {
+    private long startNodeId;
+    private long endNodeId;
+    private String type;
 
     RestRelationship( URI uri, RestAPI restApi ) {
         super( uri, restApi );
@@ -44,44 +47,87 @@ public class RestRelationship extends RestEntity implements Relationship {
         super( data, restApi );
     }
 
+    @Override
+    protected String getTypePath() {
+        return "relationship";
+    }
+
+    @Override
+    protected void readStructure( Map<?, ?> data ) {
+        super.readStructure( data );
+        this.startNodeId = getEntityId( (String) data.get( "start" ) );
+        this.endNodeId = getEntityId( (String) data.get( "end" ) );
+        this.type = ( (String) data.get( "type" ) ).intern();
+    }
+
+    @Override
+    protected void describe( Map<String, Object> structure ) {
+        super.describe( structure );
+        structure.put( "start", nodeUri( startNodeId ) );
+        structure.put( "end", nodeUri( endNodeId ) );
+        structure.put( "type", type );
+    }
+
+    private String nodeUri( long id ) {
+        return getRestApi().getRestRequest().getUri() + "/node/" + id;
+    }
+
+    private void loadStructure() {
+        if ( this.type == null ) getStructuralData();
+    }
+
     public Node getEndNode() {
-        return node( (String) getStructuralData().get( "end" ) );
+        loadStructure();
+        return node( endNodeId );
     }
 
     public Node[] getNodes() {
+        loadStructure();
         return new Node[]{
-                node( (String) getStructuralData().get( "start" ) ),
-                node( (String) getStructuralData().get( "end" ) )
+                node( startNodeId ),
+                node( endNodeId )
         };
     }
 
     public Node getOtherNode( Node node ) {
+        loadStructure();
         long nodeId = node.getId();
-        String startNodeUri = (String) getStructuralData().get( "start" );
-        String endNodeUri = (String) getStructuralData().get( "end" );
-        if ( getEntityId( startNodeUri ) == nodeId ) {
-            return node( endNodeUri );
-        } else if ( getEntityId( endNodeUri ) == nodeId ) {
-            return node( startNodeUri );
+        if ( startNodeId == nodeId ) {
+            return node( endNodeId );
+        } else if ( endNodeId == nodeId ) {
+            return node( startNodeId );
         } else {
             throw new NotFoundException( node + " isn't one of start/end for " + this );
         }
     }
 
-    private RestNode node( String uri ) {
-        return new RestNode( uri, getRestApi() );
+    private RestNode node( long id ) {
+        return getRestApi().getNodeByUri( nodeUri( id ) );
+    }
+
+    public long getStartNodeId() {
+        loadStructure();
+        return startNodeId;
+    }
+
+    public long getEndNodeId() {
+        loadStructure();
+        return endNodeId;
     }
 
     public Node getStartNode() {
-        return node( (String) getStructuralData().get( "start" ) );
+        loadStructure();
+        return node( startNodeId );
     }
 
     public RelationshipType getType() {
-        return DynamicRelationshipType.withName( (String) getStructuralData().get( "type" ) );
+        loadStructure();
+        return DynamicRelationshipType.withName( type );
     }
 
     public boolean isType( RelationshipType type ) {
-        return type.name().equals( getStructuralData().get( "type" ) );
+        loadStructure();
+        return type.name().equals( this.type );
     }
     
     
@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.index;
+
+import org.neo4j.graphdb.PropertyContainer;
+
+/**
+ * An entity together with the key and value it is to be indexed with.
+ */
+public class IndexEntry<T extends PropertyContainer> {
+    private final T entity;
+    private final String key;
+    private final Object value;
+
+    public IndexEntry(T entity, String key, Object value) {
+        this.entity = entity;
+        this.key = key;
+        this.value = value;
+    }
+
+    public T getEntity() {
+        return entity;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return entity + " " + key + "=" + value;
+    }
+}
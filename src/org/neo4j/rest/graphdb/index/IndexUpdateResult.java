@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.neo4j.graphdb.PropertyContainer;
+
+/**
+ * Outcome of a bulk index insertion or removal, entries that could not be applied are reported with the reason
+ * instead of aborting the whole run.
+ */
+public class IndexUpdateResult<T extends PropertyContainer> {
+    private long updated;
+    private final List<Failure<T>> failures = new ArrayList<Failure<T>>();
+
+    public static class Failure<T extends PropertyContainer> {
+        private final IndexEntry<T> entry;
+        private final String reason;
+
+        Failure(IndexEntry<T> entry, String reason) {
+            this.entry = entry;
+            this.reason = reason;
+        }
+
+        public IndexEntry<T> getEntry() {
+            return entry;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return entry + ": " + reason;
+        }
+    }
+
+    public synchronized void updated(int count) {
+        this.updated += count;
+    }
+
+    public synchronized void failed(Collection<IndexEntry<T>> entries, String reason) {
+        for (IndexEntry<T> entry : entries) {
+            failures.add(new Failure<T>(entry, reason));
+        }
+    }
+
+    public synchronized long getUpdatedCount() {
+        return updated;
+    }
+
+    public synchronized List<Failure<T>> getFailures() {
+        return new ArrayList<Failure<T>>(failures);
+    }
+
+    public synchronized boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "IndexUpdateResult{updated=" + updated + ", failed=" + failures.size() + "}";
+    }
+}
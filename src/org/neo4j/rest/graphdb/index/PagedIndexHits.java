@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.helpers.collection.PrefetchingIterator;
+import org.neo4j.rest.graphdb.RestAPI;
+import org.neo4j.rest.graphdb.util.PrimitiveLongIterator;
+import org.neo4j.rest.graphdb.query.RestCypherQueryEngine;
+import org.neo4j.rest.graphdb.util.QueryResult;
+
+/**
+ * Fetches the hits of an index lookup page by page with cypher while they are iterated. Pages are cut with SKIP and
+ * LIMIT in the order of the index lookup, so the server doesn't sort all hits for every page, they are consistent as
+ * long as the index doesn't change meanwhile. The first page is requested when the iteration starts, while a page is
+ * consumed the next one is already requested asynchronously. The size is counted on the server the first time it
+ * is asked for, unless the hits fit into the first page.
+ * The start clause has to bind the hits to {@code e}.
+ */
+public class PagedIndexHits<T extends PropertyContainer> extends PrefetchingIterator<T> implements RestIndexHits<T> {
+    private final RestAPI restApi;
+    private final String start;
+    private final Map<String, Object> params;
+    private final int pageSize;
+    private Iterator<T> page = Collections.<T>emptyList().iterator();
+    private Future<QueryResult<Map<String, Object>>> nextPage;
+    private boolean firstPage = true;
+    private int read;
+    private int size = -1;
+    private boolean closed;
+
+    public PagedIndexHits(RestAPI restApi, String start, Map<String, Object> params, int pageSize) {
+        this.restApi = restApi;
+        this.start = start;
+        this.params = params;
+        this.pageSize = pageSize;
+    }
+
+    private Future<QueryResult<Map<String, Object>>> requestPage(int skip, String returned) {
+        final Map<String, Object> pageParams = new HashMap<String, Object>(params);
+        pageParams.put("skip", skip);
+        return restApi.queryAsync(start + " RETURN " + returned + " SKIP {skip} LIMIT " + pageSize, pageParams);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R> List<R> await(Future<QueryResult<Map<String, Object>>> page, String column) {
+        final QueryResult<Map<String, Object>> result;
+        try {
+            result = page.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+        final List<R> hits = new ArrayList<R>();
+        for (Map<String, Object> row : result) {
+            hits.add((R) row.get(column));
+        }
+        return hits;
+    }
+
+    @Override
+    protected synchronized T fetchNextOrNull() {
+        while (!page.hasNext()) {
+            if (nextPage == null) {
+                if (!firstPage || closed) return null;
+                nextPage = requestPage(0, "e");
+            }
+            final List<T> hits = await(nextPage, "e");
+            final boolean last = hits.size() < pageSize;
+            if (firstPage && last) size = hits.size();
+            firstPage = false;
+            read += hits.size();
+            nextPage = last ? null : requestPage(read, "e");
+            page = hits.iterator();
+        }
+        return page.next();
+    }
+
+    public synchronized int size() {
+        if (size == -1) {
+            final Map<String, Object> row = new RestCypherQueryEngine(restApi).query(start + " RETURN count(e) AS hits", params).iterator().next();
+            size = ((Number) row.get("hits")).intValue();
+        }
+        return size;
+    }
+
+    /**
+     * Stops the iteration, an outstanding page request is cancelled and the fetched hits are dropped.
+     */
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        if (nextPage != null) nextPage.cancel(true);
+        nextPage = null;
+        page = Collections.<T>emptyList().iterator();
+    }
+
+    /**
+     * Pages through the ids only, no entity representations are transferred.
+     */
+    public PrimitiveLongIterator ids() {
+        return new PrimitiveLongIterator() {
+            private long[] page = new long[0];
+            private int position;
+            private int read;
+            private Future<QueryResult<Map<String, Object>>> nextPage = requestPage(0, "ID(e) AS id");
+
+            public boolean hasNext() {
+                while (position == page.length) {
+                    if (nextPage == null) return false;
+                    final List<Number> ids = await(nextPage, "id");
+                    page = new long[ids.size()];
+                    for (int i = 0; i < page.length; i++) {
+                        page[i] = ids.get(i).longValue();
+                    }
+                    position = 0;
+                    read += page.length;
+                    nextPage = page.length < pageSize ? null : requestPage(read, "ID(e) AS id");
+                }
+                return true;
+            }
+
+            public long next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return page[position++];
+            }
+        };
+    }
+
+    public T getSingle() {
+        try {
+            return hasNext() ? next() : null;
+        } finally {
+            close();
+        }
+    }
+
+    public float currentScore() {
+        return 0;
+    }
+
+    public Iterator<T> iterator() {
+        return this;
+    }
+}
@@ -20,11 +20,13 @@
 package org.neo4j.rest.graphdb.index;
 
 
+import java.util.Iterator;
+
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.PropertyContainer;
 import org.neo4j.graphdb.index.Index;
-import org.neo4j.graphdb.index.IndexHits;
 import org.neo4j.index.lucene.QueryContext;
+import org.neo4j.index.lucene.ValueContext;
 import org.neo4j.rest.graphdb.ExecutingRestRequest;
 import org.neo4j.rest.graphdb.RestAPI;
 import org.neo4j.rest.graphdb.RestGraphDatabase;
@@ -61,6 +63,32 @@ public abstract class RestIndex<T extends PropertyContainer> implements Index<T>
     public void add( T entity, String key, Object value ) {
        restApi.addToIndex(entity, this, key, value);
     }
+    /**
+     * Adds the entries with batch requests, see {@link RestAPI#addToIndex(RestIndex, java.util.Iterator)}.
+     */
+    public IndexUpdateResult<T> addAll( Iterable<IndexEntry<T>> entries ) {
+        return addAll( entries.iterator() );
+    }
+
+    /**
+     * Like {@link #addAll(Iterable)}, the entries are taken from the iterator only as the batches are sent.
+     */
+    public IndexUpdateResult<T> addAll( Iterator<IndexEntry<T>> entries ) {
+        return restApi.addToIndex( this, entries );
+    }
+
+    /**
+     * Removes the entries with batch requests, an entry without value removes the entity for its key, an entry without
+     * key removes the entity from the index. See {@link RestAPI#removeFromIndex(RestIndex, java.util.Iterator)}.
+     */
+    public IndexUpdateResult<T> removeAll( Iterable<IndexEntry<T>> entries ) {
+        return removeAll( entries.iterator() );
+    }
+
+    public IndexUpdateResult<T> removeAll( Iterator<IndexEntry<T>> entries ) {
+        return restApi.removeFromIndex( this, entries );
+    }
+
     public T putIfAbsent( T entity, String key, Object value ) {
        return restApi.putIfAbsent(entity, this, key, value);
     }
@@ -97,21 +125,47 @@ public abstract class RestIndex<T extends PropertyContainer> implements Index<T>
         restApi.deleteIndex(this, indexPath);
     }
 
-    public org.neo4j.graphdb.index.IndexHits<T> get( String key, Object value ) {
+    public RestIndexHits<T> get( String key, Object value ) {
+        if ( restApi.getIndexHitsPageSize() > 0 && !( value instanceof ValueContext ) ) {
+            return restApi.getIndexHitsPaged( this, key, value, restApi.getIndexHitsPageSize() );
+        }
         final String indexPath = indexPath(key, value);
         return restApi.queryIndex(indexPath,getEntityType());
     }
 
 
-    public IndexHits<T> query( String key, Object value ) {
+    /**
+     * When paged, the query is run with the key as field of the whole query instead of as default field.
+     */
+    public RestIndexHits<T> query( String key, Object value ) {
+        if ( restApi.getIndexHitsPageSize() > 0 && value instanceof String ) {
+            return restApi.queryIndexPaged( this, key != null ? key + ":(" + value + ")" : (String) value, restApi.getIndexHitsPageSize() );
+        }
         final String indexPath = queryPath(key, value);
         return restApi.queryIndex(indexPath, getEntityType());
     }
 
-    public org.neo4j.graphdb.index.IndexHits<T> query( Object value ) {
+    /**
+     * Like {@link #get(String, Object)}, but the hits are decoded while they are iterated, see {@link StreamingIndexHits}.
+     */
+    public RestIndexHits<T> getStreaming( String key, Object value ) {
+        return restApi.queryIndexStreaming(indexPath(key, value), getEntityType());
+    }
+
+    /**
+     * Like {@link #query(String, Object)}, but the hits are decoded while they are iterated, see {@link StreamingIndexHits}.
+     */
+    public RestIndexHits<T> queryStreaming( String key, Object value ) {
+        return restApi.queryIndexStreaming(queryPath(key, value), getEntityType());
+    }
+
+    public RestIndexHits<T> query( Object value ) {
         if (value instanceof QueryContext) {
             value = ((QueryContext)value).getQueryOrQueryObject();
         }
+        if ( restApi.getIndexHitsPageSize() > 0 && value instanceof String ) {
+            return query( null, value );
+        }
         return query("null",value);
     }
     
@@ -112,6 +112,7 @@ public class RestIndexManager implements IndexManager {
         data.put("name",indexName);
         data.put("config",config);
         restRequest.post("index/" + type, data);
+        restApi.invalidateIndexInfo(type);
     }
 
     public String[] relationshipIndexNames() {
@@ -21,28 +21,30 @@ package org.neo4j.rest.graphdb.index;
 
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Map;
 
 import org.neo4j.graphdb.PropertyContainer;
-import org.neo4j.graphdb.index.IndexHits;
 import org.neo4j.rest.graphdb.RestAPI;
 import org.neo4j.rest.graphdb.UpdatableRestResult;
 import org.neo4j.rest.graphdb.converter.RestEntityExtractor;
+import org.neo4j.rest.graphdb.util.PrimitiveLongIterator;
 
 /**
+ * Keeps the representations of the hits, an entity is only created when its hit is accessed.
  * @author mh
  * @since 22.09.11
  */
-public class SimpleIndexHits<T extends PropertyContainer> implements IndexHits<T>, UpdatableRestResult<SimpleIndexHits<T>> {
+public class SimpleIndexHits<T extends PropertyContainer> implements RestIndexHits<T>, UpdatableRestResult<SimpleIndexHits<T>> {
     private Collection<Object> hits;
     private Class<T> entityType;
     private int size;
     private Iterator<Object> iterator;
+    private RestAPI restApi;
     private RestEntityExtractor entityExtractor;
 
     public SimpleIndexHits(long batchId, Class<T> entityType, final RestAPI restApi) {
         this.entityType = entityType;
-        this.entityExtractor = restApi.createExtractor();
-
+        this.restApi = restApi;
     }
 
     public SimpleIndexHits(Collection<Object> hits, int size, Class<T> entityType, final RestAPI restApi) {
@@ -50,7 +52,7 @@ public class SimpleIndexHits<T extends PropertyContainer> implements IndexHits<T
         this.entityType = entityType;
         this.iterator = this.hits.iterator();
         this.size = size;
-        this.entityExtractor = restApi.createExtractor();
+        this.restApi = restApi;
     }
 
     public int size() {
@@ -84,9 +86,42 @@ public class SimpleIndexHits<T extends PropertyContainer> implements IndexHits<T
     }
 
     private T transform(Object value) {
+        if (entityExtractor == null) entityExtractor = restApi.createExtractor();
         return (T) entityExtractor.convertFromRepresentation(value);
     }
 
+    public PrimitiveLongIterator ids() {
+        return ids(hits);
+    }
+
+    static PrimitiveLongIterator ids(Collection<Object> hits) {
+        final Iterator<Object> representations = hits.iterator();
+        return new PrimitiveLongIterator() {
+            public boolean hasNext() {
+                return representations.hasNext();
+            }
+
+            public long next() {
+                return idOf(representations.next());
+            }
+        };
+    }
+
+    /**
+     * Reads the id from the end of the self uri without creating the entity.
+     */
+    private static long idOf(Object representation) {
+        final String uri = (String) ((Map<?, ?>) representation).get("self");
+        if (uri == null) throw new IllegalStateException("No entity in " + representation);
+        long id = 0;
+        long factor = 1;
+        for (int i = uri.length() - 1; i >= 0 && Character.isDigit(uri.charAt(i)); i--) {
+            id += (uri.charAt(i) - '0') * factor;
+            factor *= 10;
+        }
+        return id;
+    }
+
     public void remove() {
 
     }
@@ -96,6 +131,7 @@ public class SimpleIndexHits<T extends PropertyContainer> implements IndexHits<T
         this.hits= newValue.hits;
         this.iterator = this.hits.iterator();
         this.size = newValue.size;
-        this.entityExtractor = restApi.createExtractor();
+        this.restApi = restApi;
+        this.entityExtractor = null;
     }
 }
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.index;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.neo4j.graphdb.PropertyContainer;
+import org.neo4j.helpers.collection.ClosableIterator;
+import org.neo4j.helpers.collection.PrefetchingIterator;
+import org.neo4j.rest.graphdb.RestAPI;
+import org.neo4j.rest.graphdb.converter.RestEntityExtractor;
+import org.neo4j.rest.graphdb.util.PrimitiveLongIterator;
+
+/**
+ * Index hits that are decoded from the response while they are iterated, only the current hit is held in memory.
+ * {@link #size()} and {@link #ids()} have to read the remaining hits, they are kept until they are iterated.
+ * The hits have to be {@link #close() closed} if they are not iterated to the end, otherwise the response and
+ * its connection stay in use. Returned by {@link RestIndex#getStreaming} and {@link RestIndex#queryStreaming}.
+ */
+public class StreamingIndexHits<T extends PropertyContainer> extends PrefetchingIterator<T> implements RestIndexHits<T> {
+    private final ClosableIterator<Object> representations;
+    private final RestAPI restApi;
+    private final LinkedList<Object> remaining = new LinkedList<Object>();
+    private RestEntityExtractor entityExtractor;
+    private int read;
+    private boolean readAll;
+    private boolean iterated;
+
+    public StreamingIndexHits(ClosableIterator<Object> representations, RestAPI restApi) {
+        this.representations = representations;
+        this.restApi = restApi;
+    }
+
+    @Override
+    protected T fetchNextOrNull() {
+        iterated = true;
+        final Object representation = nextRepresentation();
+        return representation == null ? null : transform(representation);
+    }
+
+    private Object nextRepresentation() {
+        if (!remaining.isEmpty()) return remaining.poll();
+        if (readAll || !representations.hasNext()) return null;
+        read++;
+        return representations.next();
+    }
+
+    private void readRemaining() {
+        if (readAll) return;
+        while (representations.hasNext()) {
+            read++;
+            remaining.add(representations.next());
+        }
+        readAll = true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T transform(Object value) {
+        if (entityExtractor == null) entityExtractor = restApi.createExtractor();
+        return (T) entityExtractor.convertFromRepresentation(value);
+    }
+
+    public int size() {
+        readRemaining();
+        return read;
+    }
+
+    public void close() {
+        representations.close();
+    }
+
+    public T getSingle() {
+        try {
+            return hasNext() ? next() : null;
+        } finally {
+            close();
+        }
+    }
+
+    public float currentScore() {
+        return 0;
+    }
+
+    public Iterator<T> iterator() {
+        return this;
+    }
+
+    /**
+     * Can only be called before the iteration over the entities starts, hits already decoded are not kept.
+     */
+    public PrimitiveLongIterator ids() {
+        if (iterated) throw new IllegalStateException("The ids of streamed index hits have to be read before iterating them");
+        readRemaining();
+        final List<Object> hits = new ArrayList<Object>(remaining);
+        return SimpleIndexHits.ids(hits);
+    }
+}
@@ -22,6 +22,7 @@ package org.neo4j.rest.graphdb.query;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 import org.neo4j.helpers.collection.MapUtil;
 import org.neo4j.rest.graphdb.RequestResult;
@@ -30,7 +31,9 @@ import org.neo4j.rest.graphdb.RestRequest;
 import org.neo4j.rest.graphdb.RestResultException;
 import org.neo4j.rest.graphdb.converter.RestEntityExtractor;
 import org.neo4j.rest.graphdb.converter.RestTableResultExtractor;
+import org.neo4j.rest.graphdb.converter.StreamingTableResult;
 import org.neo4j.rest.graphdb.util.ConvertedResult;
+import org.neo4j.rest.graphdb.util.ConvertingFuture;
 import org.neo4j.rest.graphdb.util.DefaultConverter;
 import org.neo4j.rest.graphdb.util.Handler;
 import org.neo4j.rest.graphdb.util.QueryResult;
@@ -38,23 +41,51 @@ import org.neo4j.rest.graphdb.util.QueryResultBuilder;
 import org.neo4j.rest.graphdb.util.ResultConverter;
 
 public class RestCypherQueryEngine implements QueryEngine<Map<String,Object>> {
+    private static final String CYPHER_PATH = "ext/CypherPlugin/graphdb/execute_query";
     private final RestRequest restRequest;
     private final RestAPI restApi;
-    private final ResultConverter resultConverter;
+    private final ResultConverter<Map<String, Object>, ?> resultConverter;
 
     public RestCypherQueryEngine(RestAPI restApi) {
         this(restApi,null);
     }
+    @SuppressWarnings("unchecked")
     public RestCypherQueryEngine(RestAPI restApi, ResultConverter resultConverter) {
         this.restApi = restApi;
-        this.resultConverter = resultConverter!=null ? resultConverter : new DefaultConverter();
+        this.resultConverter = resultConverter!=null ? resultConverter : new DefaultConverter<Map<String, Object>, Object>();
         this.restRequest = restApi.getRestRequest();
     }
     
     @Override
     public QueryResult<Map<String, Object>> query(String statement, Map<String, Object> params) {
-        final RequestResult requestResult = restRequest.get("ext/CypherPlugin/graphdb/execute_query", MapUtil.map("query", statement, "params", params));
-        final Map<?, ?> resultMap = restRequest.toMap(requestResult);
+        restApi.flushBufferedProperties();
+        final RequestResult requestResult = restRequest.post(CYPHER_PATH, MapUtil.map("query", statement, "params", params));
+        return toQueryResult(restRequest.toMap(requestResult));
+    }
+
+    /**
+     * Executes the query but decodes the rows only while the result is iterated, so the full result is never held in memory.
+     * The result can be consumed once.
+     */
+    public QueryResult<Map<String, Object>> queryStreaming(String statement, Map<String, Object> params) {
+        restApi.flushBufferedProperties();
+        final RequestResult requestResult = restRequest.postStreaming(CYPHER_PATH, MapUtil.map("query", statement, "params", params));
+        final RestTableResultExtractor extractor = new RestTableResultExtractor(new RestEntityExtractor(restApi));
+        return new RestQueryResult(new StreamingTableResult(requestResult.createParser(), extractor), resultConverter);
+    }
+
+    public Future<QueryResult<Map<String, Object>>> queryAsync(String statement, Map<String, Object> params) {
+        restApi.flushBufferedProperties();
+        final Future<RequestResult> requestResult = restApi.getAsyncRestRequest().post(CYPHER_PATH, MapUtil.map("query", statement, "params", params));
+        return new ConvertingFuture<RequestResult, QueryResult<Map<String, Object>>>(requestResult) {
+            @Override
+            protected QueryResult<Map<String, Object>> convert(RequestResult value) {
+                return toQueryResult(value.toMap());
+            }
+        };
+    }
+
+    private QueryResult<Map<String, Object>> toQueryResult(Map<?, ?> resultMap) {
         if (RestResultException.isExceptionResult(resultMap)) throw new RestResultException(resultMap);
         return new RestQueryResult(resultMap,restApi,resultConverter);
     }
@@ -88,5 +119,9 @@ public class RestCypherQueryEngine implements QueryEngine<Map<String,Object>> {
             final List<Map<String, Object>> data = extractor.extract(result);
             this.result=new QueryResultBuilder<Map<String,Object>>(data, resultConverter);
         }
+
+        public RestQueryResult(Iterable<Map<String, Object>> rows, ResultConverter<Map<String, Object>, ?> resultConverter) {
+            this.result=new QueryResultBuilder<Map<String,Object>>(rows, resultConverter);
+        }
     }
 }
\ No newline at end of file
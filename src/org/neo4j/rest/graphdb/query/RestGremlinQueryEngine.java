@@ -60,6 +60,7 @@ public class RestGremlinQueryEngine implements QueryEngine<Object> {
 
     @Override
     public QueryResult<Object> query(String statement, Map<String, Object> params) {
+        restApi.flushBufferedProperties();
         final  Map<String, Object> data = MapUtil.map("script", statement,"params",params);
         final RequestResult requestResult = restRequest.get("ext/GremlinPlugin/graphdb/execute_script", data);
         final Object result = JsonHelper.readJson(requestResult.getEntity());
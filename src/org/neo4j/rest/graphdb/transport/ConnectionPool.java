@@ -0,0 +1,248 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.rest.graphdb.ExecutingRestRequest;
+
+/**
+ * A bounded pool of persistent http connections, with a separate limit per host.
+ * Idle connections are closed after the idle timeout, both lazily when leasing
+ * and by a background eviction timer.
+ */
+public class ConnectionPool {
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+    public static final long DEFAULT_IDLE_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+    public static final long DEFAULT_ACQUIRE_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    private final int maxConnectionsPerHost;
+    private final long idleTimeoutMillis;
+    private final long acquireTimeoutMillis;
+    private final int connectTimeout;
+    private final int readTimeout;
+
+    private final ConcurrentMap<String, HostPool> hostPools = new ConcurrentHashMap<String, HostPool>();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong closed = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong acquireTimeouts = new AtomicLong();
+    private final Timer evictionTimer;
+    private volatile boolean shutdown;
+
+    public ConnectionPool() {
+        this(DEFAULT_MAX_CONNECTIONS_PER_HOST, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    public ConnectionPool(int maxConnectionsPerHost, long idleTimeoutMillis) {
+        this(maxConnectionsPerHost, idleTimeoutMillis, DEFAULT_ACQUIRE_TIMEOUT, ExecutingRestRequest.CONNECT_TIMEOUT, ExecutingRestRequest.READ_TIMEOUT);
+    }
+
+    public ConnectionPool(int maxConnectionsPerHost, long idleTimeoutMillis, long acquireTimeoutMillis, int connectTimeout, int readTimeout) {
+        if (maxConnectionsPerHost < 1) throw new IllegalArgumentException("At least one connection per host is required, got " + maxConnectionsPerHost);
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.evictionTimer = idleTimeoutMillis > 0 ? startEvictionTimer(idleTimeoutMillis) : null;
+    }
+
+    private Timer startEvictionTimer(long idleTimeoutMillis) {
+        final Timer timer = new Timer("rest-connection-pool-eviction", true);
+        final long period = Math.max(TimeUnit.SECONDS.toMillis(1), idleTimeoutMillis / 2);
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                evictIdleConnections();
+            }
+        }, period, period);
+        return timer;
+    }
+
+    PooledConnection lease(URI uri) throws IOException {
+        if (shutdown) throw new IllegalStateException("Connection pool is shut down");
+        final HostPool hostPool = hostPool(uri);
+        acquirePermit(hostPool);
+        try {
+            PooledConnection connection;
+            while ((connection = hostPool.pollIdle()) != null) {
+                if (connection.isExpired(System.currentTimeMillis(), idleTimeoutMillis) || !connection.isOpen()) {
+                    evicted.incrementAndGet();
+                    close(connection);
+                    continue;
+                }
+                reused.incrementAndGet();
+                hostPool.leased.incrementAndGet();
+                return connection;
+            }
+            connection = PooledConnection.open(uri, hostPool.key, connectTimeout, readTimeout);
+            created.incrementAndGet();
+            hostPool.leased.incrementAndGet();
+            return connection;
+        } catch (IOException e) {
+            hostPool.permits.release();
+            throw e;
+        } catch (RuntimeException e) {
+            hostPool.permits.release();
+            throw e;
+        }
+    }
+
+    private void acquirePermit(HostPool hostPool) throws IOException {
+        try {
+            if (!hostPool.permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                acquireTimeouts.incrementAndGet();
+                throw new IOException("Timed out after " + acquireTimeoutMillis + " ms waiting for a connection to " + hostPool.key);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection to " + hostPool.key);
+        }
+    }
+
+    void release(PooledConnection connection, boolean reusable) {
+        final HostPool hostPool = hostPools.get(connection.getHostKey());
+        if (reusable && !shutdown && connection.isOpen()) {
+            connection.markIdle(System.currentTimeMillis());
+            hostPool.offerIdle(connection);
+        } else {
+            close(connection);
+        }
+        hostPool.leased.decrementAndGet();
+        hostPool.permits.release();
+    }
+
+    private void close(PooledConnection connection) {
+        connection.close();
+        closed.incrementAndGet();
+    }
+
+    private HostPool hostPool(URI uri) {
+        final String key = PooledConnection.hostKey(uri);
+        HostPool hostPool = hostPools.get(key);
+        if (hostPool == null) {
+            final HostPool newPool = new HostPool(key, maxConnectionsPerHost);
+            hostPool = hostPools.putIfAbsent(key, newPool);
+            if (hostPool == null) hostPool = newPool;
+        }
+        return hostPool;
+    }
+
+    /**
+     * Closes all idle connections that exceeded the idle timeout.
+     * @return the number of evicted connections
+     */
+    public int evictIdleConnections() {
+        final long now = System.currentTimeMillis();
+        int count = 0;
+        for (HostPool hostPool : hostPools.values()) {
+            for (PooledConnection connection : hostPool.removeIdle(now, idleTimeoutMillis)) {
+                close(connection);
+                count++;
+            }
+        }
+        evicted.addAndGet(count);
+        return count;
+    }
+
+    public ConnectionPoolStatistics getStatistics() {
+        int idle = 0;
+        int leased = 0;
+        for (HostPool hostPool : hostPools.values()) {
+            idle += hostPool.idleCount();
+            leased += hostPool.leased.get();
+        }
+        return new ConnectionPoolStatistics(created.get(), reused.get(), closed.get(), evicted.get(), acquireTimeouts.get(), leased, idle, hostPools.size());
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        if (evictionTimer != null) evictionTimer.cancel();
+        for (HostPool hostPool : hostPools.values()) {
+            for (PooledConnection connection : hostPool.removeAllIdle()) {
+                close(connection);
+            }
+        }
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    private static class HostPool {
+        private final String key;
+        private final Semaphore permits;
+        private final LinkedList<PooledConnection> idle = new LinkedList<PooledConnection>();
+        private final AtomicInteger leased = new AtomicInteger();
+
+        HostPool(String key, int maxConnections) {
+            this.key = key;
+            this.permits = new Semaphore(maxConnections, true);
+        }
+
+        synchronized PooledConnection pollIdle() {
+            return idle.pollFirst();
+        }
+
+        synchronized void offerIdle(PooledConnection connection) {
+            idle.addFirst(connection);
+        }
+
+        synchronized int idleCount() {
+            return idle.size();
+        }
+
+        synchronized LinkedList<PooledConnection> removeAllIdle() {
+            final LinkedList<PooledConnection> result = new LinkedList<PooledConnection>(idle);
+            idle.clear();
+            return result;
+        }
+
+        synchronized LinkedList<PooledConnection> removeIdle(long now, long idleTimeoutMillis) {
+            final LinkedList<PooledConnection> result = new LinkedList<PooledConnection>();
+            for (Iterator<PooledConnection> it = idle.iterator(); it.hasNext(); ) {
+                final PooledConnection connection = it.next();
+                if (connection.isExpired(now, idleTimeoutMillis) || !connection.isOpen()) {
+                    it.remove();
+                    result.add(connection);
+                }
+            }
+            return result;
+        }
+    }
+}
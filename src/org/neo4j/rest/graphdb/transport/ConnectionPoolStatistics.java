@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.transport;
+
+/**
+ * Snapshot of the counters of a {@link ConnectionPool}.
+ */
+public class ConnectionPoolStatistics {
+    private final long created;
+    private final long reused;
+    private final long closed;
+    private final long evicted;
+    private final long acquireTimeouts;
+    private final int leased;
+    private final int idle;
+    private final int hosts;
+
+    ConnectionPoolStatistics(long created, long reused, long closed, long evicted, long acquireTimeouts, int leased, int idle, int hosts) {
+        this.created = created;
+        this.reused = reused;
+        this.closed = closed;
+        this.evicted = evicted;
+        this.acquireTimeouts = acquireTimeouts;
+        this.leased = leased;
+        this.idle = idle;
+        this.hosts = hosts;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getReused() {
+        return reused;
+    }
+
+    public long getClosed() {
+        return closed;
+    }
+
+    public long getEvicted() {
+        return evicted;
+    }
+
+    public long getAcquireTimeouts() {
+        return acquireTimeouts;
+    }
+
+    public int getLeased() {
+        return leased;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getHosts() {
+        return hosts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionPoolStatistics[created=%d, reused=%d, closed=%d, evicted=%d, acquireTimeouts=%d, leased=%d, idle=%d, hosts=%d]",
+                created, reused, closed, evicted, acquireTimeouts, leased, idle, hosts);
+    }
+}
@@ -0,0 +1,332 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.transport;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.channels.ClosedChannelException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+import org.jboss.netty.bootstrap.ClientBootstrap;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelLocal;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelPipelineFactory;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.ExceptionEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
+import org.jboss.netty.handler.codec.http.HttpChunkAggregator;
+import org.jboss.netty.handler.codec.http.HttpClientCodec;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.HttpResponse;
+import org.jboss.netty.handler.ssl.SslHandler;
+import org.jboss.netty.handler.timeout.ReadTimeoutHandler;
+import org.jboss.netty.util.HashedWheelTimer;
+import org.neo4j.rest.graphdb.ExecutingRestRequest;
+import org.neo4j.rest.graphdb.util.ResultFuture;
+
+/**
+ * Non blocking http client on top of netty's NIO channels. Requests are written to kept-alive
+ * channels, at most {@code maxConnectionsPerHost} per host, further requests queue up until a
+ * channel becomes available. No thread is blocked while a request is in flight.
+ * Channels to https hosts are encrypted with the default {@link SSLContext}.
+ */
+public class NettyHttpClient {
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 32;
+    public static final int MAX_CONTENT_LENGTH = 64 * 1024 * 1024;
+
+    private final ClientBootstrap bootstrap;
+    private final HashedWheelTimer timer;
+    private final int maxConnectionsPerHost;
+    private final ConcurrentMap<String, HostChannels> hosts = new ConcurrentHashMap<String, HostChannels>();
+    private final ChannelLocal<ChannelState> states = new ChannelLocal<ChannelState>();
+
+    public NettyHttpClient() {
+        this(DEFAULT_MAX_CONNECTIONS_PER_HOST);
+    }
+
+    public NettyHttpClient(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        final ThreadFactory threadFactory = new DaemonThreadFactory();
+        this.timer = new HashedWheelTimer(threadFactory, 100, TimeUnit.MILLISECONDS);
+        this.bootstrap = new ClientBootstrap(new NioClientSocketChannelFactory(Executors.newCachedThreadPool(threadFactory), Executors.newCachedThreadPool(threadFactory)));
+        this.bootstrap.setOption("tcpNoDelay", true);
+        this.bootstrap.setOption("keepAlive", true);
+        this.bootstrap.setOption("connectTimeoutMillis", ExecutingRestRequest.CONNECT_TIMEOUT);
+        this.bootstrap.setPipelineFactory(new ChannelPipelineFactory() {
+            @Override
+            public ChannelPipeline getPipeline() {
+                final ChannelPipeline pipeline = Channels.pipeline();
+                pipeline.addLast("timeout", new ReadTimeoutHandler(timer, ExecutingRestRequest.READ_TIMEOUT, TimeUnit.MILLISECONDS));
+                pipeline.addLast("codec", new HttpClientCodec());
+                pipeline.addLast("aggregator", new HttpChunkAggregator(MAX_CONTENT_LENGTH));
+                pipeline.addLast("handler", new ResponseHandler());
+                return pipeline;
+            }
+        });
+    }
+
+    /**
+     * Sends the request to the host of the given uri, the returned future completes with the full response.
+     */
+    public ResultFuture<HttpResponse> execute(URI uri, HttpRequest request) {
+        final ResultFuture<HttpResponse> future = new ResultFuture<HttpResponse>();
+        hostChannels(uri).submit(new Exchange(request, future));
+        return future;
+    }
+
+    private HostChannels hostChannels(URI uri) {
+        final String key = PooledConnection.hostKey(uri);
+        HostChannels hostChannels = hosts.get(key);
+        if (hostChannels == null) {
+            final boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+            final int port = uri.getPort() != -1 ? uri.getPort() : secure ? 443 : 80;
+            final HostChannels newHost = new HostChannels(new InetSocketAddress(uri.getHost(), port), secure);
+            hostChannels = hosts.putIfAbsent(key, newHost);
+            if (hostChannels == null) hostChannels = newHost;
+        }
+        return hostChannels;
+    }
+
+    public void shutdown() {
+        for (HostChannels hostChannels : hosts.values()) {
+            hostChannels.closeIdle();
+        }
+        bootstrap.releaseExternalResources();
+        timer.stop();
+    }
+
+    private static class Exchange {
+        private final HttpRequest request;
+        private final ResultFuture<HttpResponse> future;
+
+        Exchange(HttpRequest request, ResultFuture<HttpResponse> future) {
+            this.request = request;
+            this.future = future;
+        }
+    }
+
+    private static class ChannelState {
+        private final HostChannels host;
+        private Exchange current;
+
+        ChannelState(HostChannels host) {
+            this.host = host;
+        }
+    }
+
+    private class HostChannels {
+        private final InetSocketAddress address;
+        private final boolean secure;
+        private final LinkedList<Channel> idle = new LinkedList<Channel>();
+        private final LinkedList<Exchange> waiting = new LinkedList<Exchange>();
+        private int open;
+
+        HostChannels(InetSocketAddress address, boolean secure) {
+            this.address = address;
+            this.secure = secure;
+        }
+
+        synchronized void submit(Exchange exchange) {
+            Channel channel;
+            while ((channel = idle.pollFirst()) != null) {
+                if (channel.isConnected()) {
+                    send(channel, exchange);
+                    return;
+                }
+                open--;
+            }
+            if (open < maxConnectionsPerHost) {
+                open++;
+                connect(exchange);
+                return;
+            }
+            waiting.add(exchange);
+        }
+
+        private void connect(final Exchange exchange) {
+            bootstrap.connect(address).addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) {
+                    if (!future.isSuccess()) {
+                        connectFailed();
+                        exchange.future.setException(future.getCause());
+                    } else if (secure) {
+                        handshake(future.getChannel(), exchange);
+                    } else {
+                        states.set(future.getChannel(), new ChannelState(HostChannels.this));
+                        send(future.getChannel(), exchange);
+                    }
+                }
+            });
+        }
+
+        private void handshake(final Channel channel, final Exchange exchange) {
+            final SSLEngine engine;
+            try {
+                engine = SSLContext.getDefault().createSSLEngine(address.getHostName(), address.getPort());
+            } catch (NoSuchAlgorithmException e) {
+                channel.close();
+                connectFailed();
+                exchange.future.setException(e);
+                return;
+            }
+            engine.setUseClientMode(true);
+            final SslHandler sslHandler = new SslHandler(engine);
+            channel.getPipeline().addFirst("ssl", sslHandler);
+            sslHandler.handshake().addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) {
+                    if (future.isSuccess()) {
+                        states.set(channel, new ChannelState(HostChannels.this));
+                        send(channel, exchange);
+                    } else {
+                        channel.close();
+                        connectFailed();
+                        exchange.future.setException(future.getCause());
+                    }
+                }
+            });
+        }
+
+        private void send(Channel channel, final Exchange exchange) {
+            states.get(channel).current = exchange;
+            channel.write(exchange.request).addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) {
+                    if (!future.isSuccess()) {
+                        exchange.future.setException(future.getCause());
+                        future.getChannel().close();
+                    }
+                }
+            });
+        }
+
+        synchronized void connectFailed() {
+            open--;
+            dispatchWaiting();
+        }
+
+        synchronized void released(Channel channel, boolean keepAlive) {
+            if (!keepAlive || !channel.isConnected()) {
+                channel.close();
+                open--;
+                dispatchWaiting();
+                return;
+            }
+            final Exchange next = waiting.poll();
+            if (next != null) {
+                send(channel, next);
+            } else {
+                idle.addFirst(channel);
+            }
+        }
+
+        synchronized void closed(Channel channel) {
+            if (idle.remove(channel)) {
+                open--;
+                dispatchWaiting();
+            }
+        }
+
+        private void dispatchWaiting() {
+            if (!waiting.isEmpty() && open < maxConnectionsPerHost) {
+                open++;
+                connect(waiting.poll());
+            }
+        }
+
+        synchronized void closeIdle() {
+            final List<Channel> channels = new ArrayList<Channel>(idle);
+            open -= idle.size();
+            idle.clear();
+            for (Channel channel : channels) {
+                channel.close();
+            }
+        }
+    }
+
+    private class ResponseHandler extends SimpleChannelUpstreamHandler {
+        @Override
+        public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) {
+            final Channel channel = ctx.getChannel();
+            final ChannelState state = states.get(channel);
+            final HttpResponse response = (HttpResponse) e.getMessage();
+            final Exchange exchange = state.current;
+            state.current = null;
+            state.host.released(channel, HttpHeaders.isKeepAlive(response));
+            if (exchange != null) exchange.future.set(response);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) {
+            final ChannelState state = states.get(ctx.getChannel());
+            if (state != null && state.current != null) {
+                state.current.future.setException(e.getCause());
+            }
+            ctx.getChannel().close();
+        }
+
+        @Override
+        public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) {
+            final Channel channel = ctx.getChannel();
+            final ChannelState state = states.remove(channel);
+            if (state == null) return;
+            if (state.current != null) {
+                final Exchange exchange = state.current;
+                state.current = null;
+                state.host.released(channel, false);
+                exchange.future.setException(new ClosedChannelException());
+            } else {
+                state.host.closed(channel);
+            }
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "rest-async-io-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.transport;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import javax.net.ssl.SSLSocketFactory;
+
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.core.header.InBoundHeaders;
+
+/**
+ * A single persistent HTTP/1.1 connection owned by a {@link ConnectionPool}.
+ */
+class PooledConnection {
+    private static final String CRLF = "\r\n";
+    private static final String ISO_8859_1 = "ISO-8859-1";
+
+    private final String hostKey;
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private long idleSince;
+    private int useCount;
+    private boolean responseStarted;
+
+    private PooledConnection(String hostKey, Socket socket) throws IOException {
+        this.hostKey = hostKey;
+        this.socket = socket;
+        this.in = new BufferedInputStream(socket.getInputStream());
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    static PooledConnection open(URI uri, String hostKey, int connectTimeout, int readTimeout) throws IOException {
+        final String host = uri.getHost();
+        final int port = port(uri);
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.setSoTimeout(readTimeout);
+            socket.connect(new InetSocketAddress(host, port), connectTimeout);
+            if (isHttps(uri)) {
+                socket = ((SSLSocketFactory) SSLSocketFactory.getDefault()).createSocket(socket, host, port, true);
+            }
+            return new PooledConnection(hostKey, socket);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    static String hostKey(URI uri) {
+        return uri.getScheme() + "://" + uri.getHost() + ":" + port(uri);
+    }
+
+    private static boolean isHttps(URI uri) {
+        return "https".equalsIgnoreCase(uri.getScheme());
+    }
+
+    private static int port(URI uri) {
+        if (uri.getPort() != -1) return uri.getPort();
+        return isHttps(uri) ? 443 : 80;
+    }
+
+    String getHostKey() {
+        return hostKey;
+    }
+
+    boolean isReused() {
+        return useCount > 0;
+    }
+
+    boolean isOpen() {
+        return !socket.isClosed() && !socket.isInputShutdown() && !socket.isOutputShutdown();
+    }
+
+    boolean isExpired(long now, long idleTimeoutMillis) {
+        return idleTimeoutMillis > 0 && now - idleSince > idleTimeoutMillis;
+    }
+
+    void markIdle(long now) {
+        this.idleSince = now;
+        this.useCount++;
+    }
+
+    void writeRequest(String method, URI uri, Map<String, List<Object>> headers, byte[] body) throws IOException {
+        responseStarted = false;
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(method).append(' ').append(requestTarget(uri)).append(" HTTP/1.1").append(CRLF);
+        sb.append("Host: ").append(uri.getHost());
+        if (uri.getPort() != -1) sb.append(':').append(uri.getPort());
+        sb.append(CRLF);
+        for (Map.Entry<String, List<Object>> header : headers.entrySet()) {
+            final String name = header.getKey();
+            if (name.equalsIgnoreCase("Host") || name.equalsIgnoreCase("Content-Length") || name.equalsIgnoreCase("Connection")) continue;
+            for (Object value : header.getValue()) {
+                sb.append(name).append(": ").append(ClientRequest.getHeaderValue(value)).append(CRLF);
+            }
+        }
+        if (body != null) {
+            sb.append("Content-Length: ").append(body.length).append(CRLF);
+        }
+        sb.append(CRLF);
+        try {
+            out.write(sb.toString().getBytes(ISO_8859_1));
+            if (body != null) {
+                out.write(body);
+            }
+            out.flush();
+        } catch (SocketException e) {
+            throw new StaleConnectionException("Connection closed by server while sending the request", e);
+        }
+    }
+
+    private String requestTarget(URI uri) {
+        final String path = uri.getRawPath();
+        final String query = uri.getRawQuery();
+        final String target = path == null || path.isEmpty() ? "/" : path;
+        return query == null ? target : target + "?" + query;
+    }
+
+    /**
+     * Reads the status line and the headers of the response, skipping interim 1xx responses.
+     * @return the status code
+     */
+    int readResponseHead(InBoundHeaders headers) throws IOException {
+        while (true) {
+            final String statusLine = readLine(!responseStarted);
+            responseStarted = true;
+            final int status = parseStatus(statusLine);
+            headers.clear();
+            String line;
+            while ((line = readLine(false)).length() > 0) {
+                final int colon = line.indexOf(':');
+                if (colon <= 0) continue;
+                headers.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+            }
+            if (status >= 100 && status < 200) continue;
+            if (statusLine.startsWith("HTTP/1.0") && !headers.containsKey("Connection")) {
+                headers.putSingle("Connection", "close");
+            }
+            return status;
+        }
+    }
+
+    private int parseStatus(String statusLine) throws IOException {
+        final int start = statusLine.indexOf(' ');
+        if (!statusLine.startsWith("HTTP/") || start == -1) throw new IOException("Invalid status line: " + statusLine);
+        int end = statusLine.indexOf(' ', start + 1);
+        if (end == -1) end = statusLine.length();
+        try {
+            return Integer.parseInt(statusLine.substring(start + 1, end));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid status line: " + statusLine);
+        }
+    }
+
+    String readLine(boolean first) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int c;
+        while ((c = read(first && line.size() == 0)) != -1) {
+            if (c == '\n') {
+                return stripCarriageReturn(line.toString(ISO_8859_1));
+            }
+            line.write(c);
+        }
+        if (first && line.size() == 0) throw new StaleConnectionException("Connection closed by server before the response started");
+        throw new EOFException("Unexpected end of stream while reading response head");
+    }
+
+    /**
+     * A reset before the first byte of the response means the server dropped the connection, a read timeout doesn't.
+     */
+    private int read(boolean responseStart) throws IOException {
+        try {
+            return in.read();
+        } catch (SocketException e) {
+            if (responseStart) throw new StaleConnectionException("Connection reset by server before the response started", e);
+            throw e;
+        }
+    }
+
+    private String stripCarriageReturn(String line) {
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+
+    InputStream getInputStream() {
+        return in;
+    }
+
+    void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * The connection failed before any byte of the response was read, the server didn't process the request.
+     */
+    static class StaleConnectionException extends EOFException {
+        private static final long serialVersionUID = 1L;
+
+        StaleConnectionException(String message) {
+            super(message);
+        }
+
+        StaleConnectionException(String message, Throwable cause) {
+            super(message);
+            initCause(cause);
+        }
+    }
+}
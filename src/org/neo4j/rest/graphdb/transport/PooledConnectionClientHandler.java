@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.TerminatingClientHandler;
+import com.sun.jersey.core.header.InBoundHeaders;
+
+/**
+ * Jersey client handler that sends requests over connections leased from a {@link ConnectionPool}.
+ * The connection goes back to the pool once the caller has consumed or closed the {@link ClientResponse}.
+ */
+public class PooledConnectionClientHandler extends TerminatingClientHandler {
+    private final ConnectionPool pool;
+
+    public PooledConnectionClientHandler(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public ClientResponse handle(ClientRequest request) throws ClientHandlerException {
+        try {
+            final byte[] body = requestBody(request);
+            return execute(request, body);
+        } catch (IOException e) {
+            throw new ClientHandlerException(e);
+        }
+    }
+
+    private byte[] requestBody(ClientRequest request) throws IOException {
+        if (request.getEntity() == null) {
+            return requiresBody(request.getMethod()) ? new byte[0] : null;
+        }
+        final RequestEntityWriter writer = getRequestEntityWriter(request);
+        if (!request.getHeaders().containsKey("Content-Type") && writer.getMediaType() != null) {
+            request.getHeaders().putSingle("Content-Type", writer.getMediaType());
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeRequestEntity(out);
+        return out.toByteArray();
+    }
+
+    private boolean requiresBody(String method) {
+        return method.equals("POST") || method.equals("PUT");
+    }
+
+    private ClientResponse execute(ClientRequest request, byte[] body) throws IOException {
+        final URI uri = request.getURI();
+        final String method = sentMethod(request.getMethod(), body);
+        while (true) {
+            final PooledConnection connection = pool.lease(uri);
+            final boolean reused = connection.isReused();
+            try {
+                connection.writeRequest(method, uri, request.getHeaders(), body);
+                final InBoundHeaders headers = new InBoundHeaders();
+                final int status = connection.readResponseHead(headers);
+                final InputStream entity = responseBody(connection, method, status, headers);
+                return new ClientResponse(status, headers, entity, getMessageBodyWorkers());
+            } catch (IOException e) {
+                final boolean retry = reused && e instanceof PooledConnection.StaleConnectionException && isIdempotent(method);
+                pool.release(connection, false);
+                // the server may have closed a kept-alive connection while it was idle in the pool, a POST or PUT
+                // may have been applied nonetheless, so only requests without side effects are sent again; other
+                // failures, e.g. a read timeout, may happen after the request was processed and are not retried
+                if (!retry) throw e;
+            }
+        }
+    }
+
+    /**
+     * Like HttpURLConnection, a GET with an entity is sent as POST, servers ignore the body of a GET.
+     */
+    private static String sentMethod(String method, byte[] body) {
+        return method.equals("GET") && body != null ? "POST" : method;
+    }
+
+    private static boolean isIdempotent(String method) {
+        return method.equals("GET") || method.equals("HEAD") || method.equals("DELETE") || method.equals("OPTIONS");
+    }
+
+    private InputStream responseBody(PooledConnection connection, String method, int status, InBoundHeaders headers) {
+        final boolean keepAlive = !"close".equalsIgnoreCase(headers.getFirst("Connection"));
+        if (method.equals("HEAD") || status == 204 || status == 304) {
+            return ResponseBodyInputStream.fixedLength(pool, connection, 0, keepAlive);
+        }
+        final String transferEncoding = headers.getFirst("Transfer-Encoding");
+        if (transferEncoding != null && transferEncoding.toLowerCase().contains("chunked")) {
+            return ResponseBodyInputStream.chunked(pool, connection, keepAlive);
+        }
+        final String contentLength = headers.getFirst("Content-Length");
+        if (contentLength != null) {
+            return ResponseBodyInputStream.fixedLength(pool, connection, Long.parseLong(contentLength.trim()), keepAlive);
+        }
+        return ResponseBodyInputStream.untilClose(pool, connection);
+    }
+}
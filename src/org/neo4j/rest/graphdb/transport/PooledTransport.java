@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.transport;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.config.DefaultClientConfig;
+
+/**
+ * Transport that keeps a bounded pool of persistent connections per host instead of
+ * relying on {@link java.net.HttpURLConnection}'s implicit keep-alive handling.
+ */
+public class PooledTransport implements RestTransport {
+    private final ConnectionPool pool;
+
+    public PooledTransport() {
+        this(new ConnectionPool());
+    }
+
+    public PooledTransport(int maxConnectionsPerHost, long idleTimeoutMillis) {
+        this(new ConnectionPool(maxConnectionsPerHost, idleTimeoutMillis));
+    }
+
+    public PooledTransport(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public Client createClient() {
+        final PooledConnectionClientHandler handler = new PooledConnectionClientHandler(pool);
+        final Client client = new Client(handler, new DefaultClientConfig());
+        handler.setMessageBodyWorkers(client.getMessageBodyWorkers());
+        return client;
+    }
+
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    public ConnectionPoolStatistics getStatistics() {
+        return pool.getStatistics();
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.transport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads one response body off a pooled connection, honouring chunked, fixed length and
+ * close-delimited framing. The connection is handed back to the pool as soon as the body
+ * was read completely, or discarded if the body is closed before that.
+ */
+class ResponseBodyInputStream extends InputStream {
+    private static final int DRAIN_LIMIT = 8192;
+
+    private enum Framing { CHUNKED, FIXED_LENGTH, UNTIL_CLOSE }
+
+    private final ConnectionPool pool;
+    private final PooledConnection connection;
+    private final InputStream in;
+    private final Framing framing;
+    private final boolean keepAlive;
+    private long remaining;
+    private boolean eof;
+    private boolean released;
+
+    private ResponseBodyInputStream(ConnectionPool pool, PooledConnection connection, Framing framing, long length, boolean keepAlive) {
+        this.pool = pool;
+        this.connection = connection;
+        this.in = connection.getInputStream();
+        this.framing = framing;
+        this.remaining = length;
+        this.keepAlive = keepAlive && framing != Framing.UNTIL_CLOSE;
+    }
+
+    static ResponseBodyInputStream chunked(ConnectionPool pool, PooledConnection connection, boolean keepAlive) {
+        return new ResponseBodyInputStream(pool, connection, Framing.CHUNKED, 0, keepAlive);
+    }
+
+    static ResponseBodyInputStream fixedLength(ConnectionPool pool, PooledConnection connection, long length, boolean keepAlive) {
+        final ResponseBodyInputStream stream = new ResponseBodyInputStream(pool, connection, Framing.FIXED_LENGTH, length, keepAlive);
+        if (length == 0) stream.endOfBody();
+        return stream;
+    }
+
+    static ResponseBodyInputStream untilClose(ConnectionPool pool, PooledConnection connection) {
+        return new ResponseBodyInputStream(pool, connection, Framing.UNTIL_CLOSE, 0, false);
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] single = new byte[1];
+        final int count = read(single, 0, 1);
+        return count == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (eof) return -1;
+        if (released) throw new IOException("Response body already closed");
+        if (length == 0) return 0;
+        try {
+            switch (framing) {
+                case FIXED_LENGTH:
+                    return readFixed(buffer, offset, length);
+                case CHUNKED:
+                    return readChunked(buffer, offset, length);
+                default:
+                    return readUntilClose(buffer, offset, length);
+            }
+        } catch (IOException e) {
+            release(false);
+            throw e;
+        }
+    }
+
+    private int readFixed(byte[] buffer, int offset, int length) throws IOException {
+        final int count = in.read(buffer, offset, (int) Math.min(length, remaining));
+        if (count == -1) throw new EOFException("Connection closed with " + remaining + " bytes of the response body outstanding");
+        remaining -= count;
+        if (remaining == 0) endOfBody();
+        return count;
+    }
+
+    private int readChunked(byte[] buffer, int offset, int length) throws IOException {
+        if (remaining == 0) {
+            remaining = readChunkSize();
+            if (remaining == 0) {
+                readTrailers();
+                endOfBody();
+                return -1;
+            }
+        }
+        final int count = in.read(buffer, offset, (int) Math.min(length, remaining));
+        if (count == -1) throw new EOFException("Connection closed within a chunk of the response body");
+        remaining -= count;
+        if (remaining == 0) connection.readLine(false);
+        return count;
+    }
+
+    private long readChunkSize() throws IOException {
+        String line = connection.readLine(false);
+        final int extension = line.indexOf(';');
+        if (extension != -1) line = line.substring(0, extension);
+        try {
+            return Long.parseLong(line.trim(), 16);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid chunk size: " + line);
+        }
+    }
+
+    private void readTrailers() throws IOException {
+        while (connection.readLine(false).length() > 0) {
+            // trailers are not used
+        }
+    }
+
+    private int readUntilClose(byte[] buffer, int offset, int length) throws IOException {
+        final int count = in.read(buffer, offset, length);
+        if (count == -1) endOfBody();
+        return count;
+    }
+
+    private void endOfBody() {
+        eof = true;
+        release(keepAlive);
+    }
+
+    private void release(boolean reusable) {
+        if (released) return;
+        released = true;
+        pool.release(connection, reusable);
+    }
+
+    /**
+     * Closing before the end of the body drains small remainders so the connection can still be reused.
+     */
+    @Override
+    public void close() throws IOException {
+        if (released) return;
+        if (keepAlive && drain()) return;
+        release(false);
+    }
+
+    private boolean drain() {
+        final byte[] buffer = new byte[1024];
+        int drained = 0;
+        try {
+            int count;
+            while (!eof && drained < DRAIN_LIMIT && (count = read(buffer, 0, buffer.length)) != -1) {
+                drained += count;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        return eof;
+    }
+}
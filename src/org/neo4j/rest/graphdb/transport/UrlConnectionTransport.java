@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.transport;
+
+import org.neo4j.rest.graphdb.ExecutingRestRequest;
+
+import com.sun.jersey.api.client.Client;
+
+/**
+ * The default transport, jersey's {@link java.net.HttpURLConnection} based client.
+ */
+public class UrlConnectionTransport implements RestTransport {
+
+    @Override
+    public Client createClient() {
+        Client client = Client.create();
+
+        client.setConnectTimeout(ExecutingRestRequest.CONNECT_TIMEOUT);
+        client.setReadTimeout(ExecutingRestRequest.READ_TIMEOUT);
+
+        return client;
+    }
+}
@@ -24,6 +24,8 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
 
+import org.neo4j.helpers.collection.ClosableIterator;
+
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Relationship;
@@ -41,15 +43,33 @@ public class RestTraverser implements Traverser {
         this.paths = parseToPaths(col, restApi);
     }
 
+    /**
+     * Parses the paths while they are decoded from the response, one representation at a time.
+     */
+    public RestTraverser(ClosableIterator<Object> representations, RestAPI restApi) {
+        this.paths = new ArrayList<Path>();
+        try {
+            while (representations.hasNext()) {
+                paths.add(parsePath(representations.next(), restApi));
+            }
+        } finally {
+            representations.close();
+        }
+    }
+
     private Collection<Path> parseToPaths(Collection col, RestAPI restApi) {
         Collection<Path> result=new ArrayList<Path>(col.size());
         for (Object path : col) {
-            if (!(path instanceof Map)) throw new RuntimeException("Expected Map for Path representation but got: "+(path!=null ? path.getClass() : null));
-            result.add(RestPathParser.parse((Map) path, restApi));
+            result.add(parsePath(path, restApi));
         }
         return result;
     }
 
+    private Path parsePath(Object path, RestAPI restApi) {
+        if (!(path instanceof Map)) throw new RuntimeException("Expected Map for Path representation but got: "+(path!=null ? path.getClass() : null));
+        return RestPathParser.parse((Map) path, restApi);
+    }
+
     @Override
     public Iterable<Node> nodes() {
         return new IterableWrapper<Node, Path>(paths) {
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.util;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Converts the value of another future on first access, in the thread that asks for it.
+ * Exceptions thrown by the conversion are reported as {@link ExecutionException}.
+ */
+public abstract class ConvertingFuture<S, T> implements Future<T> {
+    private final Future<S> source;
+    private boolean converted;
+    private T result;
+    private RuntimeException failure;
+
+    public ConvertingFuture(Future<S> source) {
+        this.source = source;
+    }
+
+    protected abstract T convert(S value);
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return source.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return source.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        return source.isDone();
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        return convertOnce(source.get());
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return convertOnce(source.get(timeout, unit));
+    }
+
+    private synchronized T convertOnce(S value) throws ExecutionException {
+        if (!converted) {
+            try {
+                result = convert(value);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            converted = true;
+        }
+        if (failure != null) throw new ExecutionException(failure);
+        return result;
+    }
+}
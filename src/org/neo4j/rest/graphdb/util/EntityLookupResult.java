@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.neo4j.helpers.collection.PrefetchingIterator;
+
+/**
+ * Entities looked up by id, in the order of the requested ids. Ids without an entity are reported as missing.
+ */
+public class EntityLookupResult<T> implements Iterable<T> {
+    private final long[] ids;
+    private final T[] entities;
+
+    public EntityLookupResult(long[] ids, T[] entities) {
+        this.ids = ids;
+        this.entities = entities;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public long getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * @return the entity for the id at the given position, null if it is missing
+     */
+    public T get(int index) {
+        return entities[index];
+    }
+
+    public boolean isMissing(int index) {
+        return entities[index] == null;
+    }
+
+    public boolean hasMissing() {
+        return getMissingIds().length > 0;
+    }
+
+    public long[] getMissingIds() {
+        final long[] missing = new long[ids.length];
+        int count = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (entities[i] == null) missing[count++] = ids[i];
+        }
+        return Arrays.copyOf(missing, count);
+    }
+
+    /**
+     * Iterates the found entities in the order of their ids, skipping the missing ones.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new PrefetchingIterator<T>() {
+            private int index;
+
+            @Override
+            protected T fetchNextOrNull() {
+                while (index < entities.length) {
+                    final T entity = entities[index++];
+                    if (entity != null) return entity;
+                }
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.util;
+
+import java.io.IOException;
+
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.neo4j.helpers.collection.ClosableIterator;
+import org.neo4j.helpers.collection.PrefetchingIterator;
+import org.neo4j.rest.graphdb.RestResultException;
+
+/**
+ * Decodes the elements of a JSON array one at a time, so only the current element is held in memory.
+ * The parser (and with it the underlying stream) is closed when the array is exhausted or on {@link #close()}.
+ */
+public class JsonArrayIterator extends PrefetchingIterator<Object> implements ClosableIterator<Object> {
+    private final JsonParser parser;
+    private boolean started;
+    private boolean closed;
+
+    public JsonArrayIterator(JsonParser parser) {
+        this.parser = parser;
+    }
+
+    @Override
+    protected Object fetchNextOrNull() {
+        if (closed) return null;
+        try {
+            if (!started) {
+                started = true;
+                final JsonToken first = parser.nextToken();
+                if (first == null) {
+                    close();
+                    return null;
+                }
+                if (first != JsonToken.START_ARRAY) {
+                    final Object value = JsonHelper.readValue(parser);
+                    close();
+                    if (RestResultException.isExceptionResult(value)) throw new RestResultException(value);
+                    throw new IllegalStateException("Expected JSON array but got " + first);
+                }
+            }
+            final JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                close();
+                return null;
+            }
+            return JsonHelper.readValue(parser);
+        } catch (IOException e) {
+            close();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            parser.close();
+        } catch (IOException e) {
+            // ignore, nothing left to read
+        }
+    }
+}
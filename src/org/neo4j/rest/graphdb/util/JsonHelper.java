@@ -25,12 +25,14 @@ package org.neo4j.rest.graphdb.util;
  */
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringWriter;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
 import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.JsonParser;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.neo4j.rest.graphdb.PropertiesMap;
 
@@ -49,16 +51,67 @@ public class JsonHelper {
     }
 
     public static Object readJson( String json ) {
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            return mapper.readValue( json, Object.class );
+            return OBJECT_MAPPER.readValue( json, Object.class );
         } catch ( IOException e ) {
             throw new RuntimeException( e );
         }
     }
 
+    /**
+     * Decodes the JSON document directly from the stream, without buffering it as a String first.
+     * The stream is closed afterwards.
+     */
+    public static Object readJson( InputStream stream ) {
+        try {
+            return OBJECT_MAPPER.readValue( stream, Object.class );
+        } catch ( IOException e ) {
+            throw new RuntimeException( e );
+        } finally {
+            closeQuietly( stream );
+        }
+    }
+
+    public static JsonParser createParser( InputStream stream ) {
+        try {
+            return OBJECT_MAPPER.getJsonFactory().createJsonParser( stream );
+        } catch ( IOException e ) {
+            throw new RuntimeException( e );
+        }
+    }
+
+    public static JsonParser createParser( String json ) {
+        try {
+            return OBJECT_MAPPER.getJsonFactory().createJsonParser( json );
+        } catch ( IOException e ) {
+            throw new RuntimeException( e );
+        }
+    }
+
+    /**
+     * Reads the complete value (scalar, object or array) the parser is positioned on.
+     */
+    public static Object readValue( JsonParser parser ) {
+        try {
+            return OBJECT_MAPPER.readValue( parser, Object.class );
+        } catch ( IOException e ) {
+            throw new RuntimeException( e );
+        }
+    }
+
+    public static void closeQuietly( InputStream stream ) {
+        try {
+            stream.close();
+        } catch ( IOException e ) {
+            // ignore, the stream is of no further use
+        }
+    }
+
     public static Object jsonToSingleValue( String json ) {
-        Object jsonObject = readJson( json );
+        return toSingleValue( readJson( json ) );
+    }
+
+    public static Object toSingleValue( Object jsonObject ) {
         return jsonObject instanceof Collection<?> ? jsonObject :
                 PropertiesMap.assertSupportedPropertyValue( jsonObject );
     }
@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.util;
+
+import java.util.Iterator;
+
+import org.neo4j.helpers.collection.ClosableIterable;
+import org.neo4j.helpers.collection.ClosableIterator;
+import org.neo4j.helpers.collection.PrefetchingIterator;
+
+/**
+ * Converts the elements of a streamed JSON array while they are iterated, so only the current element is decoded.
+ * Can be iterated once, the response is closed when the elements are exhausted or on {@link #close()}.
+ */
+public abstract class StreamingIterable<T> implements ClosableIterable<T> {
+    private final ClosableIterator<Object> representations;
+    private boolean iterated;
+
+    public StreamingIterable(ClosableIterator<Object> representations) {
+        this.representations = representations;
+    }
+
+    protected abstract T underlyingObjectToObject(Object representation);
+
+    @Override
+    public Iterator<T> iterator() {
+        if (iterated) throw new IllegalStateException("Streaming result can only be iterated once");
+        iterated = true;
+        return new PrefetchingIterator<T>() {
+            @Override
+            protected T fetchNextOrNull() {
+                if (!representations.hasNext()) return null;
+                try {
+                    return underlyingObjectToObject(representations.next());
+                } catch (RuntimeException e) {
+                    close();
+                    throw e;
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        representations.close();
+    }
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) 2002-2012 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.rest.graphdb.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+/**
+ * Compact row of a tabular result. All rows of a result share one {@link Columns} index, the values are
+ * kept positionally, integral and floating point values in a primitive slot so that {@link #getLong(String)}
+ * and {@link #getDouble(String)} don't box. Still a read-mostly {@code Map<String,Object>} for compatibility,
+ * existing columns can be overwritten, new ones cannot be added.
+ */
+public class TableRow extends AbstractMap<String, Object> {
+    private static final Object INT_VALUE = new Object();
+    private static final Object LONG_VALUE = new Object();
+    private static final Object DOUBLE_VALUE = new Object();
+
+    private final Columns columns;
+    private final Object[] values;
+    private long[] primitives;
+
+    /**
+     * Takes ownership of the values array, which holds one value per column.
+     */
+    public TableRow(Columns columns, Object[] values) {
+        this.columns = columns;
+        this.values = values;
+        for (int i = 0; i < values.length; i++) {
+            set(i, values[i]);
+        }
+    }
+
+    /**
+     * Column names and their positions, created once per result.
+     */
+    public static class Columns {
+        private final List<String> names;
+        private final Map<String, Integer> positions;
+
+        public Columns(List<String> names) {
+            this.names = Collections.unmodifiableList(names);
+            this.positions = new HashMap<String, Integer>(names.size() * 2);
+            for (int i = 0; i < names.size(); i++) {
+                positions.put(names.get(i), i);
+            }
+        }
+
+        public int indexOf(Object name) {
+            final Integer position = positions.get(name);
+            return position == null ? -1 : position;
+        }
+
+        public String name(int index) {
+            return names.get(index);
+        }
+
+        public List<String> names() {
+            return names;
+        }
+
+        public int size() {
+            return names.size();
+        }
+    }
+
+    public Columns getColumns() {
+        return columns;
+    }
+
+    private void set(int index, Object value) {
+        if (value instanceof Integer || value instanceof Long) {
+            primitives()[index] = ((Number) value).longValue();
+            values[index] = value instanceof Integer ? INT_VALUE : LONG_VALUE;
+        } else if (value instanceof Double) {
+            primitives()[index] = Double.doubleToRawLongBits((Double) value);
+            values[index] = DOUBLE_VALUE;
+        } else {
+            values[index] = value;
+        }
+    }
+
+    private long[] primitives() {
+        if (primitives == null) primitives = new long[values.length];
+        return primitives;
+    }
+
+    public Object get(int index) {
+        final Object value = values[index];
+        if (value == INT_VALUE) return (int) primitives[index];
+        if (value == LONG_VALUE) return primitives[index];
+        if (value == DOUBLE_VALUE) return Double.longBitsToDouble(primitives[index]);
+        return value;
+    }
+
+    public long getLong(int index) {
+        final Object value = values[index];
+        if (value == INT_VALUE || value == LONG_VALUE) return primitives[index];
+        if (value == DOUBLE_VALUE) return (long) Double.longBitsToDouble(primitives[index]);
+        if (value instanceof Number) return ((Number) value).longValue();
+        throw new ClassCastException("Column " + columns.name(index) + " is not numeric: " + value);
+    }
+
+    public long getLong(String column) {
+        return getLong(index(column));
+    }
+
+    public double getDouble(int index) {
+        final Object value = values[index];
+        if (value == DOUBLE_VALUE) return Double.longBitsToDouble(primitives[index]);
+        if (value == INT_VALUE || value == LONG_VALUE) return primitives[index];
+        if (value instanceof Number) return ((Number) value).doubleValue();
+        throw new ClassCastException("Column " + columns.name(index) + " is not numeric: " + value);
+    }
+
+    public double getDouble(String column) {
+        return getDouble(index(column));
+    }
+
+    public String getString(String column) {
+        final Object value = get(index(column));
+        return value == null ? null : value.toString();
+    }
+
+    public Node getNode(String column) {
+        return (Node) values[index(column)];
+    }
+
+    public Relationship getRelationship(String column) {
+        return (Relationship) values[index(column)];
+    }
+
+    private int index(String column) {
+        final int index = columns.indexOf(column);
+        if (index == -1) throw new NoSuchElementException("No column " + column + " in " + columns.names());
+        return index;
+    }
+
+    @Override
+    public Object get(Object key) {
+        final int index = columns.indexOf(key);
+        return index == -1 ? null : get(index);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return columns.indexOf(key) != -1;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        final int index = columns.indexOf(key);
+        if (index == -1) throw new UnsupportedOperationException("Cannot add column " + key + " to a result row");
+        final Object old = get(index);
+        set(index, value);
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<Entry<String, Object>>() {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < values.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        final int current = index++;
+                        return new SimpleImmutableEntry<String, Object>(columns.name(current), get(current));
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+}